@@ -13,7 +13,7 @@ import game.player.*;
 import game.player.ai.AI;
 import game.player.ai.Dummy;
 import game.player.ai.MinimaxNode;
-import game.player.ai.AI.MinimaxValueFinder;
+import game.player.ai.ZobristHash;
 
 /**
  * A class representing a checkers game
@@ -33,6 +33,15 @@ public class Game
 		CHESS
 	}
 	
+	/** The default number of times a position may occur before the game is drawn by repetition **/
+	public static final int DEFAULT_REPETITION_LIMIT = 3;
+	
+	/** The default number of plies without an irreversible move after which a checkers game is drawn, the forty move rule **/
+	public static final int DEFAULT_QUIET_PLY_LIMIT = 80;
+	
+	/** The default number of plies without an irreversible move after which a chess game is drawn, the fifty move rule **/
+	public static final int DEFAULT_CHESS_QUIET_PLY_LIMIT = 100;
+	
 	/** The board this game takes place on **/
 	private Board board;
 	
@@ -45,6 +54,18 @@ public class Game
 	/** The state of this game **/
 	private boolean completed;
 	
+	/** Whether or not this game ended in a draw **/
+	private boolean drawn;
+	
+	/** The hashes of the positions since the last irreversible move, the current position last, never modified once shared with a copy **/
+	private ArrayList<Long> positionHistory;
+	
+	/** The number of times a position may occur before the game is drawn by repetition, or zero if it never is **/
+	private int repetitionLimit;
+	
+	/** The number of plies without an irreversible move after which the game is drawn, or zero if it never is **/
+	private int quietPlyLimit;
+	
 	/**
 	 * Parameterized constructor, sets this game to the given game type
 	 * 
@@ -53,6 +74,8 @@ public class Game
 	public Game(GameType type) throws IOException
 	{	
 		completed = false;
+		positionHistory = new ArrayList<Long>();
+		repetitionLimit = DEFAULT_REPETITION_LIMIT;
 		
 		if(type == GameType.CHECKERS)
 		{
@@ -74,6 +97,8 @@ public class Game
 			
 			board = new ChessBoard(this);
 		}
+		
+		quietPlyLimit = getDefaultQuietPlyLimit(board);
 	}
 	
 	/**
@@ -84,6 +109,10 @@ public class Game
 	public Game(Game game)
 	{
 		completed = game.isCompleted();
+		drawn = game.isDrawn();
+		positionHistory = game.positionHistory;
+		repetitionLimit = game.repetitionLimit;
+		quietPlyLimit = game.quietPlyLimit;
 		
 		this.players = new Player[game.getPlayers().length];
 		
@@ -120,6 +149,20 @@ public class Game
 		this.board = board;
 		this.players = players;
 		this.turn = turn;
+		this.positionHistory = new ArrayList<Long>();
+		this.repetitionLimit = DEFAULT_REPETITION_LIMIT;
+		this.quietPlyLimit = getDefaultQuietPlyLimit(board);
+	}
+	
+	/**
+	 * Returns the default number of plies without an irreversible move after which a game on the given board is drawn
+	 * 
+	 * @param board	the board of the game, or null if it is set later
+	 * @return	the fifty move rule on chess boards, and the forty move rule of checkers otherwise
+	 */
+	private static int getDefaultQuietPlyLimit(Board board)
+	{
+		return board instanceof ChessBoard ? DEFAULT_CHESS_QUIET_PLY_LIMIT : DEFAULT_QUIET_PLY_LIMIT;
 	}
 	
 	/**
@@ -136,7 +179,7 @@ public class Game
 			{
 				if(player instanceof AI)
 				{
-					((AI) player).startPlayerEvaluationThreads(thisPlayer);
+					((AI) player).startPondering(thisPlayer);
 				}
 			}
 		}
@@ -166,7 +209,7 @@ public class Game
 				{
 					if(player instanceof AI)
 					{
-						((AI) player).finishPlayerEvaluationThreads(thisPlayer);
+						((AI) player).finishPondering(thisPlayer);
 					}
 				}
 			}
@@ -178,23 +221,63 @@ public class Game
 		{
 			move = thisPlayer.getThisTurnMove();
 		}
+		
+		if(positionHistory.isEmpty())
+		{
+			positionHistory = new ArrayList<Long>();
+			positionHistory.add(ZobristHash.getHash(this));
+		}
+		
+		boolean irreversible = move.isIrreversible();
 	
 		board.executeMove(move);
 				
 		turn = turn.getOther();
 		
+		recordPosition(irreversible);
+		
 		if(thisPlayer instanceof Human)
 		{
 			for(Player player : players)
 			{
 				if(player instanceof AI)
 				{
-					((AI) player).finishPlayerEvaluationThreads(thisPlayer);
+					((AI) player).finishPondering(thisPlayer);
 				}
 			}
 		}
 	}
 	
+	/**
+	 * Adds the current position to the history, and completes this game as a draw if a draw rule applies
+	 * The history is replaced rather than modified, as copies of this game may share it
+	 * 
+	 * @param irreversible	whether or not the move leading to the current position was irreversible
+	 */
+	private void recordPosition(boolean irreversible)
+	{
+		long hash = ZobristHash.getHash(this);
+		
+		positionHistory = irreversible ? new ArrayList<Long>() : new ArrayList<Long>(positionHistory);
+		positionHistory.add(hash);
+		
+		int occurrences = 0;
+		
+		for(long previous : positionHistory)
+		{
+			if(previous == hash)
+			{
+				occurrences ++;
+			}
+		}
+		
+		if((repetitionLimit > 0 && occurrences >= repetitionLimit) || (quietPlyLimit > 0 && positionHistory.size() - 1 >= quietPlyLimit))
+		{
+			drawn = true;
+			completed = true;
+		}
+	}
+	
 	/**
 	 * Draws this game on the given graphics object
 	 * 
@@ -237,6 +320,46 @@ public class Game
 		return completed;
 	}
 	
+	/**
+	 * @return whether or not this game ended in a draw
+	 */
+	public boolean isDrawn()
+	{
+		return drawn;
+	}
+	
+	/**
+	 * @return the hashes of the positions since the last irreversible move, the current position last, not to be modified
+	 */
+	public ArrayList<Long> getPositionHistory()
+	{
+		return positionHistory;
+	}
+	
+	/**
+	 * @return the number of plies without an irreversible move after which this game is drawn, or zero if it never is
+	 */
+	public int getQuietPlyLimit()
+	{
+		return quietPlyLimit;
+	}
+	
+	/**
+	 * @param repetitionLimit the number of times a position may occur before this game is drawn, or zero to never draw by repetition
+	 */
+	public void setRepetitionLimit(int repetitionLimit)
+	{
+		this.repetitionLimit = repetitionLimit;
+	}
+	
+	/**
+	 * @param quietPlyLimit the number of plies without an irreversible move after which this game is drawn, or zero to never draw by it
+	 */
+	public void setQuietPlyLimit(int quietPlyLimit)
+	{
+		this.quietPlyLimit = quietPlyLimit;
+	}
+	
 	/**
 	 * @param board the board to set
 	 */
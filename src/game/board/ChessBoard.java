@@ -328,6 +328,38 @@ public class ChessBoard	extends RectangularBoard
 		return realPossibleMoves;
 	}
 	
+	/**
+	 * Returns whether or not the king of the given loyalty can be captured by the other player
+	 * 
+	 * @param loyalty	the loyalty to be tested
+	 * @return	a boolean describing whether or not the given loyalty is in check
+	 */
+	public boolean isInCheck(Loyalty loyalty)
+	{
+		for(Node node : getNodes())
+		{
+			Piece piece = node.getPiece();
+			
+			if(piece == null || piece.getLoyalty() == loyalty)
+			{
+				continue;
+			}
+			
+			for(Move move : piece.getPossibleMoves())
+			{
+				for(Node jumped : move.getJumped())
+				{
+					if(jumped.getPiece() instanceof King)
+					{
+						return true;
+					}
+				}
+			}
+		}
+		
+		return false;
+	}
+	
 	/**
 	 * @return the node width of this board
 	 */
@@ -3,6 +3,7 @@ package game.board;
 import game.Game;
 import game.board.node.Location;
 import game.board.node.Node;
+import game.move.Move;
 import game.piece.Piece;
 
 /**
@@ -20,10 +21,17 @@ public abstract class RectangularBoard extends Board
 	 * @param length the length of this rectangular board
 	 * @param width the width of this rectangular board
 	 * @param game the game of this rectangular board
+	 * @throws IllegalArgumentException if the board has more nodes than move keys can index
 	 */
 	public RectangularBoard(int length, int width, Game game)
 	{
 		super(game);
+		
+		if(length*width > Move.MAX_NODES)
+		{
+			throw new IllegalArgumentException("Board too large for move keys: " + length + " by " + width);
+		}
+		
 		this.grid = new Node[length][width];
 		initializeNodes();
 		loadBoard();
@@ -143,6 +151,17 @@ public abstract class RectangularBoard extends Board
 		return grid;
 	}
 	
+	/**
+	 * Returns the index of the given location in row major order
+	 * 
+	 * @param loc	the location to be indexed
+	 * @return the index of the given location
+	 */
+	public int getIndex(Location loc)
+	{
+		return loc.getRow()*grid[0].length + loc.getCol();
+	}
+	
 	/**
 	 * Returns the piece at the given location
 	 * 
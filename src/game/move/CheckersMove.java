@@ -3,7 +3,9 @@ package game.move;
 import game.board.RectangularBoard;
 import game.board.node.Location;
 import game.board.node.Node;
+import game.piece.Piece;
 import game.piece.Piece.Loyalty;
+import game.piece.checkersPieces.Soldier;
 
 import java.util.ArrayList;
 
@@ -48,6 +50,28 @@ public class CheckersMove extends Move
 		}
 	}
 	
+	/**
+	 * Returns whether or not this move crowns a soldier
+	 * 
+	 * @return a boolean describing whether or not this move promotes
+	 */
+	public boolean isPromotion()
+	{
+		Piece piece = getNodes().get(0).getPiece();
+		
+		return piece instanceof Soldier && getNodes().get(getNodes().size() - 1).getLoc().getRow() == (1 - piece.getLoyalty().getVal())*(getBoard().getGrid().length - 1);
+	}
+	
+	/**
+	 * Returns whether or not this move can never be undone, as captures and soldier moves are
+	 * 
+	 * @return a boolean describing whether or not this move is irreversible
+	 */
+	public boolean isIrreversible()
+	{
+		return !getJumped().isEmpty() || getNodes().get(0).getPiece() instanceof Soldier;
+	}
+	
 	/**
 	 * Returns whether or not this move is simple
 	 * 
@@ -3,6 +3,11 @@ package game.move;
 import game.board.RectangularBoard;
 import game.board.node.Node;
 import game.piece.Piece.Loyalty;
+import game.piece.chessPieces.Bishop;
+import game.piece.chessPieces.Knight;
+import game.piece.chessPieces.Pawn;
+import game.piece.chessPieces.Queen;
+import game.piece.chessPieces.Rook;
 
 import java.util.ArrayList;
 
@@ -57,6 +62,64 @@ public class ChessMove extends Move
 		}
 	}
 	
+	/**
+	 * Returns whether or not this move promotes a pawn
+	 * 
+	 * @return a boolean describing whether or not this move promotes
+	 */
+	public boolean isPromotion()
+	{
+		return promotionType != null;
+	}
+	
+	/**
+	 * Returns whether or not this move can never be undone, as captures and pawn moves are
+	 * 
+	 * @return a boolean describing whether or not this move is irreversible
+	 */
+	public boolean isIrreversible()
+	{
+		return !getJumped().isEmpty() || getNodes().get(0).getPiece() instanceof Pawn;
+	}
+	
+	/**
+	 * Returns a key identifying this move, with the promotion enumeration as the path
+	 * 
+	 * @return the key of this move
+	 */
+	@Override
+	public int getKey()
+	{
+		return super.getKey() | (getPromotionEnum() << 24);
+	}
+	
+	/**
+	 * @return the enumeration of the promotion type, or zero if this move does not promote
+	 */
+	public int getPromotionEnum()
+	{
+		if(promotionType == Knight.class)
+		{
+			return 2;
+		}
+		else if(promotionType == Bishop.class)
+		{
+			return 3;
+		}
+		else if(promotionType == Rook.class)
+		{
+			return 4;
+		}
+		else if(promotionType == Queen.class)
+		{
+			return 5;
+		}
+		else
+		{
+			return 0;
+		}
+	}
+	
 	/**
 	 * @return the promotion type
 	 */
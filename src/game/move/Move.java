@@ -13,6 +13,9 @@ import java.util.ArrayList;
  */
 public abstract class Move
 {
+	/** The maximum number of nodes of a board whose indices fit in a move key **/
+	public static final int MAX_NODES = 1 << 12;
+	
 	/** The array list of nodes gone through in this move **/
 	private ArrayList<Node> nodes;
 	
@@ -46,6 +49,21 @@ public abstract class Move
 	 */
 	public abstract void loadJumped();
 	
+	/**
+	 * Returns whether or not this move promotes the moved piece
+	 * 
+	 * @return a boolean describing whether or not this move promotes
+	 */
+	public abstract boolean isPromotion();
+	
+	/**
+	 * Returns whether or not this move can never be undone, so that no position before it can occur again
+	 * Must be called before the move is executed
+	 * 
+	 * @return a boolean describing whether or not this move is irreversible
+	 */
+	public abstract boolean isIrreversible();
+	
 	/**
 	 * Returns a String representation of this move 
 	 */
@@ -61,6 +79,101 @@ public abstract class Move
 		return string;
 	}
 	
+	/**
+	 * Returns a key identifying this move independently of the board instance it was generated on
+	 * The lowest twelve bits hold the start index, the next twelve the end index, and the highest eight a hash of the path
+	 * Multiple jumps with the same start and end may share a key, so moves found by key are verified with getMove
+	 * 
+	 * @return the key of this move
+	 */
+	public int getKey()
+	{
+		int path = 0;
+		
+		for(int i = 1; i < nodes.size() - 1; i ++)
+		{
+			path = 31*path + board.getIndex(nodes.get(i).getLoc());
+		}
+		
+		return ((path & 0xFF) << 24) | (board.getIndex(nodes.get(nodes.size() - 1).getLoc()) << 12) | board.getIndex(nodes.get(0).getLoc());
+	}
+	
+	/**
+	 * Returns whether or not the given move goes through the same locations as this move
+	 * 
+	 * @param move	the move to be compared, possibly generated on another board
+	 * @return	a boolean describing whether or not the moves have the same path
+	 */
+	public boolean hasSamePath(Move move)
+	{
+		if(move.nodes.size() != nodes.size())
+		{
+			return false;
+		}
+		
+		for(int i = 0; i < nodes.size(); i ++)
+		{
+			if(!nodes.get(i).getLoc().equals(move.nodes.get(i).getLoc()))
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Returns the move of the given moves with the given key
+	 * A key shared by moves with different paths does not identify a move, so none is returned for it
+	 * 
+	 * @param moves	the moves to be searched
+	 * @param key	the key of the move
+	 * @return	the move with the key, or null if there is none or if the key is ambiguous
+	 */
+	public static Move getMove(ArrayList<Move> moves, int key)
+	{
+		Move found = null;
+		
+		for(Move move : moves)
+		{
+			if(move.getKey() != key)
+			{
+				continue;
+			}
+			
+			if(found != null && !found.hasSamePath(move))
+			{
+				return null;
+			}
+			
+			found = move;
+		}
+		
+		return found;
+	}
+	
+	/**
+	 * Returns the start index of the move with the given key
+	 * 
+	 * @param key	the key of the move
+	 * @return the start index of the move
+	 */
+	public static int getStartIndex(int key)
+	{
+		return key & 0xFFF;
+	}
+	
+	/**
+	 * Returns the end index of the move with the given key
+	 * 
+	 * @param key	the key of the move
+	 * @return the end index of the move
+	 */
+	public static int getEndIndex(int key)
+	{
+		return (key >>> 12) & 0xFFF;
+	}
+	
 	/**
 	 * Returns the array list of nodes jumped in this move
 	 * 
@@ -2,16 +2,15 @@ package game.player.ai;
 
 import game.Game;
 import game.board.CheckersBoard;
-import game.board.node.Node;
 import game.move.Move;
 import game.piece.Piece;
 import game.piece.Piece.Loyalty;
 import game.player.Player;
+import game.player.ai.book.OpeningBook;
+import game.player.ai.endgame.EndgameDatabase;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.TreeMap;
 /**
  * A class representing a Human player associated with a game
@@ -23,20 +22,29 @@ public class AI extends Player
 	/** The minimax depth of this ai instance **/
 	private final int minimaxDepth;
 	
-	/** The transposition table of this ai instance **/
-	private ArrayList<HashMap<MinimaxNodeContents, Double>> transpositionTables;
+	/** The negamax search of this ai instance **/
+	private NegamaxSearch search;
+	
+	/** The lazy smp search running the negamax search of this ai instance on several threads **/
+	private LazySmpSearch parallelSearch;
+	
+	/** The young brothers wait search used instead of the lazy smp search, or null if it is not used **/
+	private YbwcSearch ybwcSearch;
+	
+	/** The search splitting the root moves over the shared worker pool, created on first use **/
+	private RootSplitSearch rootSplitSearch;
 	
 	/** The map containing the worths of pieces **/
 	private TreeMap<Class<? extends Piece>, Double> worthMap;
 	
-	/** THe array containing the values of this worth map **/
-	private double worthMapValues[];
-	
 	/** The depth of the minimax search **/
 	private static final int DEFAULT_MINIMAX_DEPTH = 12;
 	
-	/** The minimax threads to run while other players turns are running **/
-	MinimaxValueFinder[] minimaxThreads;
+	/** The ponderer searching while other players turns are running **/
+	private Ponderer ponderer;
+	
+	/** The opening book probed before any search, or null if none is used **/
+	private OpeningBook openingBook;
 	
 	/**
 	 * Parameterized constructor, initializes name, pieces, and loyalty
@@ -60,7 +68,9 @@ public class AI extends Player
 	{
 		super(name, loyalty, game);
 		this.minimaxDepth = minimaxDepth;
-		this.transpositionTables = new ArrayList<HashMap<MinimaxNodeContents, Double>>();
+		this.search = new NegamaxSearch(new TranspositionTable());
+		this.parallelSearch = new LazySmpSearch(search, 1);
+		this.ponderer = new Ponderer(search, minimaxDepth);
 		this.worthMap = new TreeMap<Class<? extends Piece>, Double>();
 	}
 
@@ -77,887 +87,365 @@ public class AI extends Player
 		 * Idea: Use the minimax algorithm evaluation function to teach board game playing and comments on moves made
 		 */
 		
-		transpositionTables.clear();
-		
 		double initialTime = System.nanoTime();
 		
 		ArrayList<Move> possibleMoves = getPossibleMoves();
 		
 		if(isDefeated())
 		{
+			ponderer.cancel();
+			
 			return null;
 		}
 		
-		Move[] possibleMovesArray = new Move[possibleMoves.size()];
-		
-		MinimaxNode[] possibleNextNodes = new MinimaxNode[possibleMoves.size()];
-		
-		MinimaxNode currentNode = new MinimaxNode(0, new Game(getGame()), null, null, 0, true);
+		Move bookMove = getBookMove();
 		
-		for(int i = 0; i < possibleMoves.size(); i ++)
-		{	
-			possibleMovesArray[i] = possibleMoves.get(i);
-			possibleNextNodes[i] = currentNode.getNextNode(possibleMoves.get(i));
+		if(bookMove != null)
+		{
+			System.out.println("Time taken: " + (System.nanoTime() - initialTime)/1000000000 + " seconds");
+			
+			return getMatchingMove(possibleMoves, bookMove);
 		}
 		
-		double maxMinimaxVal = Integer.MIN_VALUE;
+		MinimaxNode currentNode = new MinimaxNode(0, new Game(getGame()), null, null, 0, true);
 		
-		ArrayList<Integer> maxMovesIndeces = new ArrayList<Integer>();
+		MinimaxNode databaseNode = getDatabaseNode(currentNode);
 		
-		for(int i = 0; i < possibleNextNodes.length; i ++)
+		if(databaseNode != null)
 		{
-			double currentVal = getMinimaxVal(possibleNextNodes[i], maxMinimaxVal, Integer.MAX_VALUE, functionVal(currentNode));
-			
-			if(currentVal > maxMinimaxVal)
-			{
-				maxMovesIndeces.clear();
-				maxMovesIndeces.add(i);
-				maxMinimaxVal = currentVal;
-			}
-			else if(currentVal == maxMinimaxVal)
-			{
-				maxMovesIndeces.add(i);
-			}
+			System.out.println("Time taken: " + (System.nanoTime() - initialTime)/1000000000 + " seconds");
 			
-			possibleNextNodes[i].setValue(currentVal);
-			
-			System.out.println("Move " + i + ": " + possibleMovesArray[i] + " with value " + currentVal);
+			return getMatchingMove(possibleMoves, databaseNode.getMove());
 		}
-	
-		System.out.print("Best moves: ");
 		
-		for(int index : maxMovesIndeces)
+		MinimaxNode ponderedNode = ponderer.getResult(getGame());
+		
+		if(ponderedNode != null)
 		{
-			System.out.print(index + " ");
+			System.out.println("Ponder hit: " + ponderedNode.getMove() + " with value " + ponderedNode.getValue());
+			System.out.println("Depth completed: " + search.getCompletedDepth());
+			System.out.println("Time taken: " + (System.nanoTime() - initialTime)/1000000000 + " seconds");
+			
+			return getMatchingMove(possibleMoves, ponderedNode.getMove());
 		}
 		
-		System.out.println();		
-		System.out.println("Move chosen: " + maxMovesIndeces.get(0) + " with value " + possibleNextNodes[maxMovesIndeces.get(0)].getValue());
+		resetNodeCount();
+		
+		MinimaxNode bestNode = findBestNode(currentNode, minimaxDepth, Long.MAX_VALUE);
+		
+		System.out.println("Move chosen: " + bestNode.getMove() + " with value " + bestNode.getValue());
+		printNodeCount();
 		System.out.println("Time taken: " + (System.nanoTime() - initialTime)/1000000000 + " seconds");
 		
-		return possibleMovesArray[maxMovesIndeces.get(0)];
+		return getMatchingMove(possibleMoves, bestNode.getMove());
 	}
 	
 	/**
-	 * Returns the move executed this turn
+	 * Returns the best child of the given root, found by the young brothers wait search if it is used and by the lazy smp search otherwise
 	 * 
-	 * @return	the move to be executed this turn
-	 * @throws IOException 
+	 * @param root	the node at which the search begins
+	 * @param maxDepth	the depth of the last iteration
+	 * @param time	the time in milliseconds the search may take
+	 * @return	the best child of the root with its value set
+	 * @throws IOException
 	 */
-	public Move getThisTurnMove(long time) throws IOException
-	{	
-		long initialTime = System.currentTimeMillis();
-		
-		MinimaxNode currentNode = new MinimaxNode(0, new Game(getGame()), null, null, 0, true);
-		
-		SearchTree tree = new SearchTree(currentNode, this);
-		
-		if(isDefeated())
-		{
-			return null;
-		}
-
-		while(System.currentTimeMillis() - initialTime < time)
-		{
-			System.out.println("Time: " + (System.currentTimeMillis() - initialTime) + " Depth: " + tree.getDepth());
-			tree.increaseDepth();
-		}
-
-		ArrayList<MinimaxSuperNode> nextNodes = currentNode.getChildren();
-		Collections.shuffle(nextNodes);
-		
-		ArrayList<Integer> maxMovesIndeces = new ArrayList<Integer>();
-		
-		double maxMinimaxVal = Integer.MIN_VALUE;
-		
-		for(int i = 0; i < nextNodes.size(); i ++)
+	private MinimaxNode findBestNode(MinimaxNode root, int maxDepth, long time) throws IOException
+	{
+		if(ybwcSearch != null)
 		{
-			double currentVal = nextNodes.get(i).getValue();
-			
-			if(currentVal > maxMinimaxVal)
-			{
-				maxMovesIndeces.clear();
-				maxMovesIndeces.add(i);
-				maxMinimaxVal = currentVal;
-			}
-			
-			if(currentVal == maxMinimaxVal)
-			{
-				maxMovesIndeces.add(i);
-			}
+			return ybwcSearch.iterativeDeepening(root, maxDepth, time);
 		}
 		
-		int random = (int)(maxMovesIndeces.size()*Math.random());
-		
-		return ((MinimaxNode) nextNodes.get(maxMovesIndeces.get(random))).getMove();
+		return parallelSearch.iterativeDeepening(root, maxDepth, time);
 	}
 	
 	/**
-	 * Returns the move executed this turn
+	 * Returns the move of the opening book for the position of this game, stopping any pondering
+	 * A book move is played at once, even if the position was pondered
 	 * 
-	 * @return	the move to be executed this turn
-	 * @throws IOException 
+	 * @return	the book move, or null if no book is used or the position is not in it
 	 */
-	public Move getThisTurnMoveThreaded() throws IOException
-	{	
-		ArrayList<Move> possibleMoves = getPossibleMoves();
-		
-		if(isDefeated())
-		{
-			return null;
-		}
-		
-		Move[] possibleMovesArray = new Move[possibleMoves.size()];
-		
-		MinimaxNode[] possibleNextNodes = new MinimaxNode[possibleMoves.size()];
-		
-		MinimaxNode currentNode = new MinimaxNode(0, new Game(getGame()), null, null, 0, true);
-		
-		for(int i = 0; i < possibleMoves.size(); i ++)
-		{
-			possibleMovesArray[i] = possibleMoves.get(i);
-			possibleNextNodes[i] = currentNode.getNextNode(possibleMoves.get(i));
-		}
-		
-		double maxMinimaxVal = Integer.MIN_VALUE;
-		
-		ArrayList<Integer> maxMovesIndeces = new ArrayList<Integer>();
-		
-		MinimaxValueFinder[] minimaxThreads = new MinimaxValueFinder[possibleNextNodes.length];
-		
-		for(int i = 0; i < minimaxThreads.length; i ++)
-		{
-			minimaxThreads[i] = new MinimaxValueFinder(possibleNextNodes[i]);
-			minimaxThreads[i].start();
-		}
-		
-		boolean threadsHaveFinished = false;
+	private Move getBookMove()
+	{
+		Move bookMove = openingBook == null ? null : openingBook.getMove(getGame());
 		
-		while(!threadsHaveFinished)
+		if(bookMove != null)
 		{
-			threadsHaveFinished = true;
+			ponderer.cancel();
 			
-			for(int i = 0; i < minimaxThreads.length; i ++)
-			{
-				if(minimaxThreads[i].isAlive())
-				{
-					threadsHaveFinished = false;
-				}
-			}
-		}
-
-		double[] minimaxValues = new double[minimaxThreads.length];
-		
-		for(int i = 0; i < minimaxThreads.length; i ++)
-		{
-			minimaxValues[i] = minimaxThreads[i].getMinimaxValue();
+			System.out.println("Opening book move");
 		}
 		
-		for(int i = 0; i < minimaxValues.length; i ++)
-		{	
-			double currentVal = minimaxValues[i];
-			
-			if(currentVal > maxMinimaxVal)
-			{
-				maxMovesIndeces.clear();
-				maxMovesIndeces.add(i);
-				maxMinimaxVal = currentVal;
-			}
-			
-			if(currentVal == maxMinimaxVal)
-			{
-				maxMovesIndeces.add(i);
-			}
-		}
-		
-		int random = (int)(maxMovesIndeces.size()*Math.random());
-		
-		return possibleMovesArray[maxMovesIndeces.get(random)];
+		return bookMove;
 	}
 	
 	/**
-	 * Returns the minimax val of the given move
+	 * Returns the best child of the given root if the endgame database knows the root to be won or lost, stopping any pondering
+	 * A database move is preferred over a pondered one, which may not have seen the database result within its depth
 	 * 
-	 * @param minimaxNode	the move whose minimax val is evaluated
-	 * @param alphaVal	the alpha value of this minimax evaluation
-	 * @param betaVal	the beta value of this minimax evaluation
-	 * @param parentVal	the function value of the paret of this node
-	 * @return	the minimax val of the given move
-	 * @throws IOException 
+	 * @param root	the node at which the search would begin
+	 * @return	the best child of the root with its value set, or null if the database does not know the result of the root
 	 */
-	private double getMinimaxVal(MinimaxNode node, double alphaVal, double betaVal, Double parentVal, int specificMinimaxDepth, Player maximizedPlayer) throws IOException
-	{	
-		/** Dynamic programming transposition table search **/
+	private MinimaxNode getDatabaseNode(MinimaxNode root)
+	{
+		MinimaxNode databaseNode = search.getDatabaseNode(root);
 		
-		/** Hash table initialization for this level **/
-		if(transpositionTables.size() <= node.getMinimaxDepth())
-		{
-			transpositionTables.add(new HashMap<MinimaxNodeContents, Double>());
-		}
-		else
+		if(databaseNode != null)
 		{
-			/** Search for any similar nodes in smaller or equal depth of tree **/
+			ponderer.cancel();
 			
-			/** Currently out of use, unclear if beneficial
-			for(int i = node.getMinimaxDepth(); i >= 0; i --)
-			{
-				Double transposedVal = transpositionTables.get(i).get(node.getContents());
-				
-				if(transposedVal != null)
-				{
-					return transposedVal;
-				}
-			}
-			**/
-			
-			/** Case of match: value returned **/
-			Double transposedVal = transpositionTables.get(node.getMinimaxDepth()).get(node.getContents());
-			
-			if(transposedVal != null)
-			{
-				return transposedVal;
-			}
+			System.out.println("Endgame database move");
 		}
 		
-		/** Heuristic of this node based on parent heuristic **/
-		double functionVal;
-		
-		if(parentVal != null)
-		{
-			functionVal = functionVal(parentVal, node.getMove(), maximizedPlayer);
-		}
-		else
+		return databaseNode;
+	}
+	
+	/**
+	 * Resets the node counts of the search in use
+	 */
+	private void resetNodeCount()
+	{
+		if(ybwcSearch != null)
 		{
-			functionVal = functionVal(node, maximizedPlayer);
+			ybwcSearch.resetNodeCount();
 		}
 		
-		
-		/** Leaf node case testing **/
-		if(node.getMinimaxDepth() >= specificMinimaxDepth)
-		{
-		  	return functionVal;
-		}
+		parallelSearch.resetNodeCount();
+	}
 	
-		ArrayList<Move> nextMoves = node.getNextMoves();
-		
-		if(node.getGame().getPlayers()[node.getGame().getTurn().getVal()].isDefeated())
+	/**
+	 * Prints the node counts of the search in use
+	 */
+	private void printNodeCount()
+	{
+		if(ybwcSearch != null)
 		{
-		  	return functionVal;
+			System.out.println("Nodes searched: " + ybwcSearch.getNodeCount() + " (" + ybwcSearch.getQuiescenceNodeCount() + " quiescence)");
 		}
-		
-		boolean thisPlayersTurn = maximizedPlayer.getLoyalty().getVal() == node.getGame().getTurn().getVal();
-		
-		double extreme;
-		
-		/** Heuristic sorts children for alpha-beta optimizations **/
-//		heuristicSort(nextMoves, node, thisPlayersTurn, functionVal);
-		
-		/** Minimax evaluations **/
-		if(thisPlayersTurn)
-		{
-			extreme = Integer.MIN_VALUE;
-			
-			for(Move nextMove : nextMoves)
-			{	
-				double maxCand = getMinimaxVal(node.getNextNode(nextMove), alphaVal, betaVal, functionVal, specificMinimaxDepth, maximizedPlayer);
-				
-				extreme = Math.max(extreme, maxCand);
-				
-				alphaVal = Math.max(alphaVal, maxCand);
-				
-				if(alphaVal >= betaVal)
-				{
-					break;
-				}
-			}
-		} 
 		else
 		{
-			extreme = Integer.MAX_VALUE;
-			
-			for(Move nextMove : nextMoves)
-			{
-				double minCand = getMinimaxVal(node.getNextNode(nextMove), alphaVal, betaVal, functionVal, specificMinimaxDepth, maximizedPlayer);
-
-				extreme = Math.min(extreme, minCand);
-				
-				betaVal = Math.min(betaVal, minCand);
-				
-				if(alphaVal >= betaVal)
-				{
-					break;
-				}
-			}
+			System.out.println("Nodes searched: " + parallelSearch.getNodeCount() + " (" + parallelSearch.getQuiescenceNodeCount() + " quiescence)");
 		}
-		
-		/** Transposition table insertion **/
-		transpositionTables.get(node.getMinimaxDepth()).put(node.getContents(), extreme);
-		
-		return extreme;
-	}
-	
-	/**
-	 * Computes an appropriate depth for the minimax search executed this turn
-	 * 
-	 * @param node	the node at which the search begins
-	 * @return	an appropriate depth from this node
-	 */
-//	private int getAppropriateDepth(MinimaxNode node)
-//	{
-//		return minimaxDepth;
-//	}
-	
-	/**
-	 * Returns the minimax val of the given move
-	 * 
-	 * @param minimaxNode	the move whose minimax val is evaluated
-	 * @param alphaVal	the alpha value of this minimax evaluation
-	 * @param betaVal	the beta value of this minimax evaluation
-	 * @param parentVal	the function value of the paret of this node
-	 * @return	the minimax val of the given move
-	 * @throws IOException 
-	 */
-	private double getMinimaxVal(MinimaxNode node, double alphaVal, double betaVal, Double parentVal, int specificMinimaxDepth) throws IOException
-	{	
-		return this.getMinimaxVal(node, alphaVal, betaVal, parentVal, specificMinimaxDepth, this);
 	}
 	
 	/**
-	 * Returns the minimax val of the given move
+	 * Returns the move of the given moves with the same key and path as the given move
+	 * Moves found by the search belong to copies of the board, so the original move is returned instead
 	 * 
-	 * @param minimaxNode	the move whose minimax val is evaluated
-	 * @param alphaVal	the alpha value of this minimax evaluation
-	 * @param betaVal	the beta value of this minimax evaluation
-	 * @param parentVal	the function value of the paret of this node
-	 * @return	the minimax val of the given move
-	 * @throws IOException 
+	 * @param moves	the moves generated on the board of this game
+	 * @param move	the move to be matched
+	 * @return	the matching move, or the given move if none matches
 	 */
-	private double getMinimaxVal(MinimaxNode node, double alphaVal, double betaVal, Double parentVal) throws IOException
-	{	
-		return this.getMinimaxVal(node, alphaVal, betaVal, parentVal, this.minimaxDepth);
-	}
-	
-	/**
-	 * Returns the minimax val of the given move
-	 * 
-	 * @param minimaxNode	the move whose minimax val is evaluated
-	 * @param alphaVal	the alpha value of this minimax evaluation
-	 * @param betaVal	the beta value of this minimax evaluation
-	 * @return	the minimax val of the given move
-	 * @throws IOException 
-	 */
-	private double getMinimaxVal(MinimaxNode node, double alphaVal, double betaVal) throws IOException
-	{	
-		return this.getMinimaxVal(node, alphaVal, betaVal, null);
+	private static Move getMatchingMove(ArrayList<Move> moves, Move move)
+	{
+		for(Move candidate : moves)
+		{
+			if(candidate.getKey() == move.getKey() && candidate.hasSamePath(move))
+			{
+				return candidate;
+			}
+		}
+		
+		return move;
 	}
 	
 	/**
-	 * Returns the minimax val of the given move
+	 * Returns the move executed this turn, searching for at most the given time
 	 * 
-	 * @param minimaxNode	the move whose minimax val is evaluated
-	 * @param alphaVal	the alpha value of this minimax evaluation
-	 * @param betaVal	the beta value of this minimax evaluation
-	 * @return	the minimax val of the given move
+	 * @param time	the time in milliseconds the search may take
+	 * @return	the move to be executed this turn
 	 * @throws IOException 
 	 */
-	private double getMinimaxVal(MinimaxNode node, double alphaVal, double betaVal, int specificMinimaxDepth) throws IOException
+	public Move getThisTurnMove(long time) throws IOException
 	{	
-		return this.getMinimaxVal(node, alphaVal, betaVal, null, specificMinimaxDepth);
-	}
-	
-	/**
-	 * Performs a heuristic sort on the array list of moves
-	 *
-	 * @param moves	the moves to be heuristically sorted
-	 * @throws IOException 
-	 */
-	private ArrayList<Move> heuristicSort(ArrayList<Move> moves, MinimaxNode node, boolean thisPlayersTurn) throws IOException
-	{
-		ArrayList<MinimaxNode> nextNodes = new ArrayList<MinimaxNode>();
-		
-		double alphaVal = Integer.MIN_VALUE;
-		
-		double betaVal = Integer.MAX_VALUE;
+		long initialTime = System.currentTimeMillis();
 		
-		double extremeMoveVal = thisPlayersTurn ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+		ArrayList<Move> possibleMoves = getPossibleMoves();
 		
-		for(Move move : moves)
+		if(isDefeated())
 		{
-			MinimaxNode nextNode = node.getNextNode(move);
-			nextNode.setMinimaxDepth(nextNode.getMinimaxDepth() + 12);
-			double candidateVal = getMinimaxVal(nextNode, alphaVal, betaVal);
-			
-			if(thisPlayersTurn)
-			{
-				extremeMoveVal = Math.max(extremeMoveVal, candidateVal);
-				alphaVal = Math.max(alphaVal, extremeMoveVal);
-			}
-			else
-			{
-				extremeMoveVal = Math.min(extremeMoveVal, candidateVal);
-				betaVal = Math.max(betaVal, extremeMoveVal);
-			}
-			
-			nextNode.setValue(candidateVal);
+			ponderer.cancel();
 			
-			nextNodes.add(nextNode);
+			return null;
 		}
 		
-		if(!thisPlayersTurn)
-		{
-			nextNodes = quickSort(nextNodes, 0, nextNodes.size() - 1);
-		}
-		else
+		Move bookMove = getBookMove();
+		
+		if(bookMove != null)
 		{
-			nextNodes = reverseQuickSort(nextNodes, 0, nextNodes.size() - 1);
+			return getMatchingMove(possibleMoves, bookMove);
 		}
 		
-		for(int i = 0; i < moves.size(); i ++)
+		MinimaxNode currentNode = new MinimaxNode(0, new Game(getGame()), null, null, 0, true);
+		
+		MinimaxNode databaseNode = getDatabaseNode(currentNode);
+		
+		if(databaseNode != null)
 		{
-			moves.set(i, nextNodes.get(i).getMove());
+			return getMatchingMove(possibleMoves, databaseNode.getMove());
 		}
 		
-		return moves;
-	}
-	
-	/**
-	 * Performs a heuristic sort on the array list of moves
-	 *
-	 * @param moves	the moves to be heuristically sorted
-	 * @throws IOException 
-	 */
-	private ArrayList<Move> heuristicSort(ArrayList<Move> moves, MinimaxNode node, boolean thisPlayersTurn, double parentVal) throws IOException
-	{
-		ArrayList<MinimaxNode> nextNodes = new ArrayList<MinimaxNode>();
+		/** A pondering of this position keeps searching for the time of this turn instead of being restarted **/
+		MinimaxNode ponderedNode = ponderer.getResult(getGame(), time);
 		
-		for(Move move : moves)
+		if(ponderedNode != null)
 		{
-			MinimaxNode nextNode = node.getNextNode(move);
-			double candidateVal = functionVal(parentVal, move);
-			
-			nextNode.setValue(candidateVal);
+			System.out.println("Ponder hit: " + ponderedNode.getMove() + " with value " + ponderedNode.getValue());
+			System.out.println("Depth completed: " + search.getCompletedDepth());
 			
-			nextNodes.add(nextNode);
+			return getMatchingMove(possibleMoves, ponderedNode.getMove());
 		}
 		
-		if(!thisPlayersTurn)
-		{
-			nextNodes = quickSort(nextNodes, 0, nextNodes.size() - 1);
-		}
-		else
-		{
-			nextNodes = reverseQuickSort(nextNodes, 0, nextNodes.size() - 1);
-		}
+		resetNodeCount();
 		
-		for(int i = 0; i < moves.size(); i ++)
-		{
-			moves.set(i, nextNodes.get(i).getMove());
-		}
+		MinimaxNode bestNode = findBestNode(currentNode, NegamaxSearch.MAX_DEPTH, Math.max(1, time - (System.currentTimeMillis() - initialTime)));
+		
+		System.out.println("Move chosen: " + bestNode.getMove() + " with value " + bestNode.getValue());
+		System.out.println("Depth completed: " + search.getCompletedDepth());
+		printNodeCount();
 		
-		return moves;
+		return getMatchingMove(possibleMoves, bestNode.getMove());
 	}
 	
-	
 	/**
-	 * Sorts the given array list of minimax nodes
+	 * Returns and prints the given number of best moves of this turn with their exact values and principal variations
 	 * 
-	 * @param nodes	the array list to be sorted
-	 * @param start	the starting index
-	 * @param end	the end index
-	 * @return	the sorted array list
+	 * @param lines	the number of best moves to be found
+	 * @param time	the time in milliseconds the search may take, searching to the depth of this ai if unlimited
+	 * @return	the lines found, best first
+	 * @throws IOException 
 	 */
-	private ArrayList<MinimaxNode> quickSort(ArrayList<MinimaxNode> nodes, int start, int end)
+	public ArrayList<PrincipalVariation> analyze(int lines, long time) throws IOException
 	{
-		if(start <= end)
-		{
-			return nodes;
-		}
+		ponderer.cancel();
+		search.resetNodeCount();
 		
-		MinimaxNode pivotNode = nodes.get(end);
-		double pivotVal = pivotNode.getValue();
+		MinimaxNode currentNode = new MinimaxNode(0, new Game(getGame()), null, null, 0, true);
 		
-		int delimeterIndex = start;
+		ArrayList<PrincipalVariation> variations = search.multiPv(currentNode, lines, time == Long.MAX_VALUE ? minimaxDepth : NegamaxSearch.MAX_DEPTH, time);
 		
-		for(int i = start; i < end; i ++)
+		for(int i = 0; i < variations.size(); i ++)
 		{
-			MinimaxNode currentNode = nodes.get(i);
-			
-			if(currentNode.getValue() < pivotVal)
-			{
-				nodes.set(i, nodes.get(delimeterIndex));
-				nodes.set(delimeterIndex, currentNode);
-				
-				delimeterIndex ++;
-			}
+			System.out.println((i + 1) + ". " + variations.get(i));
 		}
 		
-		nodes.set(end, nodes.get(delimeterIndex));
-		nodes.set(delimeterIndex, pivotNode);
-		
-		quickSort(nodes, start, delimeterIndex - 1);
-		quickSort(nodes, delimeterIndex + 1, end);
+		System.out.println("Depth completed: " + search.getCompletedDepth());
+		System.out.println("Nodes searched: " + search.getNodeCount() + " (" + search.getQuiescenceNodeCount() + " quiescence)");
 		
-		return nodes;
+		return variations;
 	}
 	
 	/**
-	 * Reverse sorts the given array list of minimax nodes
+	 * Returns the move executed this turn, searching the root moves in parallel on the shared worker pool
 	 * 
-	 * @param nodes	the array list to be sorted
-	 * @param start	the starting index
-	 * @param end	the end index
-	 * @return	the sorted array list
+	 * @return	the move to be executed this turn
+	 * @throws IOException 
 	 */
-	private ArrayList<MinimaxNode> reverseQuickSort(ArrayList<MinimaxNode> nodes, int start, int end)
-	{
-		if(start <= end)
-		{
-			return nodes;
-		}
+	public Move getThisTurnMoveThreaded() throws IOException
+	{	
+		ponderer.cancel();
 		
-		MinimaxNode pivotNode = nodes.get(end);
-		double pivotVal = pivotNode.getValue();
+		ArrayList<Move> possibleMoves = getPossibleMoves();
 		
-		int delimeterIndex = start;
+		if(isDefeated())
+		{
+			return null;
+		}
 		
-		for(int i = start; i < end; i ++)
+		if(rootSplitSearch == null)
 		{
-			MinimaxNode currentNode = nodes.get(i);
-			
-			if(currentNode.getValue() > pivotVal)
-			{
-				nodes.set(i, nodes.get(delimeterIndex));
-				nodes.set(delimeterIndex, currentNode);
-				
-				delimeterIndex ++;
-			}
+			rootSplitSearch = new RootSplitSearch(search.getTranspositionTable());
 		}
 		
-		nodes.set(end, nodes.get(delimeterIndex));
-		nodes.set(delimeterIndex, pivotNode);
+		MinimaxNode currentNode = new MinimaxNode(0, new Game(getGame()), null, null, 0, true);
 		
-		reverseQuickSort(nodes, start, delimeterIndex - 1);
-		reverseQuickSort(nodes, delimeterIndex + 1, end);
+		MinimaxNode bestNode = rootSplitSearch.iterativeDeepening(currentNode, minimaxDepth);
 		
-		return nodes;
+		return getMatchingMove(possibleMoves, bestNode.getMove());
 	}
 	
 	/**
-	 * Returns the function value of the given move
+	 * Starts pondering while the given player, an opponent of this ai, is thinking
 	 * 
-	 * @param move	the move whose function value is evaluated
-	 * @return	the function value of the given move
+	 * @param player	the player whose turn it is
 	 */
-	private double functionVal(MinimaxNode node)
+	public void startPondering(Player player)
 	{
-		return functionVal(node.getGame());
+		ponderer.start(player.getGame());
 	}
 	
 	/**
-	 * Returns the function value of the given move
+	 * Stops pondering once the given player has moved, unless the move was the expected one
 	 * 
-	 * @param move	the move whose function value is evaluated
-	 * @return	the function value of the given move
+	 * @param player	the player whose turn has ended
 	 */
-	private static double functionVal(MinimaxNode node, Player player)
+	public void finishPondering(Player player)
 	{
-		return functionVal(node.getGame(), player);
+		ponderer.finish(player.getGame());
 	}
 	
 	/**
-	 * Returns the function value of the given move and parent value
-	 * 
-	 * @return	the function value of the given move
+	 * @return the negamax search of this AI
 	 */
-	private static double functionVal(double parentVal, Move move, Player player)
+	public NegamaxSearch getSearch()
 	{
-		double functionVal = parentVal;
-		
-		Player[] players = player.getGame().getPlayers();
-		
-		boolean hasWon = true;
-		
-		for(Player enemy : players) 
-		{
-			if(enemy.getLoyalty() != player.getLoyalty())
-			{
-				if(!enemy.isDefeated())
-				{
-					hasWon = false;
-				}
-			}
-		}
-		
-		if(hasWon)
-		{
-			return Integer.MAX_VALUE;
-		}
-		
-		if(player.isDefeated())
-		{
-			return Integer.MIN_VALUE;
-		}
-		
-		for(Node jumped : move.getJumped())
-		{
-			if(jumped.getPiece().getLoyalty() == player.getLoyalty())
-			{
-//				functionVal -= worthMap.get(jumped.getPiece().getClass());
-				functionVal -= jumped.getPiece().getWorth();
-			}
-			else
-			{
-//				functionVal += worthMap.get(jumped.getPiece().getClass());
-				functionVal += jumped.getPiece().getWorth();
-			}
-		}
-		
-		return functionVal;
+		return search;
 	}
 	
 	/**
-	 * Returns the function value of the given move and parent value
+	 * Sets the opening book whose moves this AI plays without searching while the game is in it
 	 * 
-	 * @return	the function value of the given move
+	 * @param openingBook	the opening book, or null to search every move
 	 */
-	private double functionVal(double parentVal, Move move)
+	public void setOpeningBook(OpeningBook openingBook)
 	{
-		return functionVal(parentVal, move, this);
+		this.openingBook = openingBook;
 	}
 	
-	private static double functionVal(Game game, Player player)
-	{
-		Player[] players = game.getPlayers();
-		double functionVal = 0;
-		
-		boolean hasWon = true;
-		
-		for(Player enemy : players) 
-		{
-			if(enemy.getLoyalty() != player.getLoyalty())
-			{
-				if(!enemy.isDefeated())
-				{
-					hasWon = false;
-				}
-			}
-		}
-		
-		if(hasWon)
-		{
-			return Integer.MAX_VALUE;
-		}
-		
-		if(player.isDefeated())
-		{
-			return Integer.MIN_VALUE;
-		}
-		
-		for(Node gridNode : game.getBoard().getNodes())
-		{
-			Piece piece = gridNode.getPiece();
-			
-			if(piece != null)
-			{
-				if(piece.getLoyalty() == player.getLoyalty())
-				{
-//					functionVal += worthMap.get(piece.getClass());
-					functionVal += piece.getWorth();
-				}
-				else
-				{
-//					functionVal -= worthMap.get(piece.getClass());
-					functionVal -= piece.getWorth();
-				}
-			}
-		}
-		
-		return functionVal;
-	}
-	
-	private double functionVal(Game game)
+	/**
+	 * Sets the endgame database probed by the search of this AI, whose helper threads probe it too
+	 * 
+	 * @param endgameDatabase	the endgame database, or null to search endgames like any other position
+	 */
+	public void setEndgameDatabase(EndgameDatabase endgameDatabase)
 	{
-		return functionVal(game, this);
+		search.setEndgameDatabase(endgameDatabase);
 	}
 	
 	/**
-	 * Initializes threads to evaluate other player's moves 
+	 * Sets whether the main search of this AI finds the value of each iteration by mtd(f) or within aspiration windows, so that the two can be compared
 	 * 
-	 * @throws IOException 
-	 * @param player the player to be evaluated
+	 * @param mtdf	whether or not iterations are searched by mtd(f)
 	 */
-	public void startPlayerEvaluationThreads(Player player) throws IOException
+	public void setMtdf(boolean mtdf)
 	{
-		transpositionTables.clear();
-		
-		ArrayList<Move> possibleMoves = player.getPossibleMoves();
-		
-		MinimaxNode[] possibleNextNodes = new MinimaxNode[possibleMoves.size()];
-		
-		MinimaxNode currentNode = new MinimaxNode(0, new Game(player.getGame()), null, null, 0, true);
-		
-		for(int i = 0; i < possibleMoves.size(); i ++)
-		{
-			possibleNextNodes[i] = currentNode.getNextNode(possibleMoves.get(i));
-		}
-		
-		minimaxThreads = new MinimaxValueFinder[possibleNextNodes.length];
-		
-		for(int i = 0; i < minimaxThreads.length; i ++)
-		{
-			/** This piece should be changed to evaluate for player, not for the instance of AI **/
-			minimaxThreads[i] = new MinimaxValueFinder(possibleNextNodes[i], functionVal(currentNode, player), player);
-			minimaxThreads[i].start();
-		}
-		
-		System.out.println("Evaluation threads initialized");
+		search.setMtdf(mtdf);
 	}
 	
 	/**
-	 * Evaluates a player based off of minimax results
+	 * Sets the number of threads searching for the moves of this AI, helper threads sharing the transposition table of the main search
+	 * 
+	 * @param threads	the total number of searching threads
 	 */
-	public void finishPlayerEvaluationThreads(Player player)
+	public void setSearchThreads(int threads)
 	{
-		MinimaxNodeContents newContents = new MinimaxNodeContents(player.getGame());
-		int chosenIndex = 0;
-		double chosenValue = 0;
-		
-		for(int i = 0; i < minimaxThreads.length; i ++)
-		{
-			if(minimaxThreads[i].getNode().getContents().equals(newContents))
-			{
-				chosenValue = minimaxThreads[i].getMinimaxValue();
-				chosenIndex = i;
-			}
-			
-			System.out.println("Move " + i + ": " + minimaxThreads[i].getMinimaxValue());
-		}
-		
-		System.out.println("Move chosen: " + chosenIndex + " with value " + chosenValue);
-		
-		double count = 0;
-		double greaterCount = 0;
-		
-		for(MinimaxValueFinder minimaxThread : minimaxThreads)
-		{
-			count ++;
-			
-			if(minimaxThread.getMinimaxValue() > chosenValue)
-			{
-				greaterCount ++;
-			}
-		}
-			
-		double evaluatedRank = (count - greaterCount)/count;
-		
-		System.out.println("Evaluated Rank: " + evaluatedRank);
-
-		for(int i = 0; i < minimaxThreads.length; i ++)
-		{
-			/** Find alternative way to stop this thread **/
-			minimaxThreads[i].stop();
-		}
+		parallelSearch.shutdown();
+		parallelSearch = new LazySmpSearch(search, threads);
 	}
 	
-	private static TreeMap<Class<? extends Piece>, Double> generateWorths(Game game, int minimaxDepth, int repetitionNum, double increment)
+	/**
+	 * Sets the number of threads of the young brothers wait search, which replaces the lazy smp search unless the number is zero
+	 * 
+	 * @param threads	the number of threads of the fork join pool, or zero to use the lazy smp search
+	 */
+	public void setYbwcThreads(int threads)
 	{
-		Game testGame = new Game(game);
-		
-		for(Player testPlayer : testGame.getPlayers())
+		if(ybwcSearch != null)
 		{
-			testPlayer = new AI("", testPlayer.getLoyalty(), testGame, minimaxDepth);
-			
-			for(Class<? extends Piece> pieceType : testGame.getBoard().getPieceTypes())
-			{
-				((AI) testPlayer).worthMap.put(pieceType, 1.0);
-			}
+			ybwcSearch.shutdown();
 		}
 		
-		AI maximizedPlayer = (AI) testGame.getPlayers()[0];
-		
-		for(int i = 0; i < repetitionNum; i ++)
-		{
-			for(Class<? extends Piece> pieceType : maximizedPlayer.worthMap.keySet())
-			{
-				boolean stable = false;
-				
-				while(!testGame.isCompleted())
-				{
-					try
-					{
-						testGame.executeTurn();
-					}
-					catch (IOException e)
-					{
-						e.printStackTrace();
-					}
-				}
-				
-				/*
-				 * More accurate representation of end game position should be calculated
-				 * This one simply returns positive or negative max integer value because players are defeated
-				 */
-				double previousVal = functionVal(testGame, maximizedPlayer);
-				double currentVal;
-				double derivative = 0;
-				
-				Double pieceWorth = ((AI) testGame.getPlayers()[0]).worthMap.get(pieceType);
-				
-				pieceWorth += increment;
-				
-				while(!stable)
-				{
-					while(!testGame.isCompleted())
-					{
-						try
-						{
-							testGame.executeTurn();
-						} 
-						catch (IOException e)
-						{
-							e.printStackTrace();
-						}
-					}
-					
-					currentVal = functionVal(testGame, maximizedPlayer);
-					
-					double thisDeriv = currentVal - previousVal;
-					
-					if(thisDeriv > 0)
-					{	
-						if(derivative < 0)
-						{
-							stable = true;
-						}
-					}
-					else
-					{
-						increment *= -1;
-					}
-					
-					pieceWorth += increment;
-					
-					derivative = currentVal - previousVal;
-					
-					previousVal = currentVal;
-					
-					Player[] oldPlayers = testGame.getPlayers();
-					
-					testGame = new Game(game);
-					
-					testGame.setPlayers(oldPlayers);
-				}
-				
-				double newPieceWorth = maximizedPlayer.worthMap.get(pieceType);
-				
-				for(Player player : testGame.getPlayers())
-				{
-					((AI) player).worthMap.get(pieceType);
-				}
-			}
-		}
-		
-		return maximizedPlayer.worthMap;
+		ybwcSearch = threads > 0 ? new YbwcSearch(search.getTranspositionTable(), threads) : null;
 	}
 	
 	/**
@@ -975,112 +463,4 @@ public class AI extends Player
 	{
 		this.worthMap = worthMap;
 	}
-	
-	/**
-	 * A class implementing runnable allowing the threading of minmax evaluation
-	 * 
-	 * @author Benjamin Cohen-Wang
-	 */
-	public class MinimaxValueFinder extends Thread
-	{
-		/** The minimax node of this minimax value finder **/
-		private MinimaxNode node;
-		
-		/** The minimax value of this minimax value finder **/
-		private double minimaxValue;
-		
-		/** The parent function value of this minimax value finder **/
-		private Double parentValue;
-		
-		/** The player this minimax value finder is working to evaluate **/
-		private Player player;
-		
-		/**
-		 * Parameterized constructor, initializes MinimaxValue instance to given node
-		 * 
-		 * @param node	the node to be set to
-		 */
-		public MinimaxValueFinder(MinimaxNode node, Player player)
-		{
-			this(node, null, player);
-		}
-		
-		/**
-		 * Parameterized constructor, initializes MinimaxValue instance to given node
-		 * 
-		 * @param node	the node to be set to
-		 */
-		public MinimaxValueFinder(MinimaxNode node)
-		{
-			this(node, null);
-		}
-		
-		/**
-		 * Parameterized constructor, initializes MinimaxValue instance to given node
-		 * 
-		 * @param node	the node to be set to
-		 */
-		public MinimaxValueFinder(MinimaxNode node, Double parentValue, Player player)
-		{
-			this.node = node;
-			this.parentValue = parentValue;
-			this.player = player;
-		}
-
-		/**
-		 * Evaluates the minimax val of the node of this instance
-		 */
-		@Override
-		public void run()
-		{
-			if(parentValue == null)
-			{
-				for(int i = 1; i <= minimaxDepth; i ++)
-				{
-					try
-					{
-						minimaxValue = getMinimaxVal(node, Integer.MIN_VALUE, Integer.MAX_VALUE, null, i, player);
-					} 
-					catch (IOException exception)
-					{
-						exception.printStackTrace();
-					}
-				}
-			}
-			else
-			{
-				for(int i = 1; i <= minimaxDepth; i ++)
-				{
-					try
-					{
-						minimaxValue = getMinimaxVal(node, Integer.MIN_VALUE, Integer.MAX_VALUE, parentValue, i, player);
-					} 
-					catch (IOException exception)
-					{
-						exception.printStackTrace();
-					}
-				}
-			}
-		}
-		
-		/**
-		 * Returns the minimax value of this instance
-		 * 
-		 * @return	the minimax value of this instance
-		 */
-		public double getMinimaxValue()
-		{
-			return minimaxValue;
-		}
-		
-		/**
-		 * Returns the minimax node of this instance
-		 * 
-		 * @return	the minimax node of this instance
-		 */
-		public MinimaxNode getNode()
-		{
-			return node;
-		}
-	}
 }
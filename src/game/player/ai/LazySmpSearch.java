@@ -0,0 +1,210 @@
+package game.player.ai;
+
+import game.Game;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A class performing a lazy smp search, in which helper threads run the same iterative deepening as the main thread
+ * The threads communicate only through their shared transposition table, the helpers filling it with results the main thread then reuses
+ * Only the result of the main thread is reported, and the helpers are stopped once it returns
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class LazySmpSearch
+{
+	/** The search run on the calling thread **/
+	private NegamaxSearch mainSearch;
+	
+	/** The searches run on the helper threads **/
+	private NegamaxSearch[] helpers;
+	
+	/** The executor running the helper searches, or null if there are no helpers **/
+	private ExecutorService executor;
+	
+	/**
+	 * Parameterized constructor, initializes the helpers to share the transposition table of the given search
+	 * 
+	 * @param mainSearch	the search run on the calling thread
+	 * @param threads	the total number of searching threads, including the calling thread
+	 */
+	public LazySmpSearch(NegamaxSearch mainSearch, int threads)
+	{
+		this.mainSearch = mainSearch;
+		this.helpers = new NegamaxSearch[Math.max(threads - 1, 0)];
+		
+		for(int i = 0; i < helpers.length; i ++)
+		{
+			helpers[i] = new NegamaxSearch(mainSearch.getTranspositionTable());
+			helpers[i].setHelperIndex(i + 1);
+		}
+		
+		if(helpers.length > 0)
+		{
+			executor = Executors.newFixedThreadPool(helpers.length, new ThreadFactory()
+			{
+				/** The number of threads created so far **/
+				private int count;
+				
+				@Override
+				public Thread newThread(Runnable runnable)
+				{
+					Thread thread = new Thread(runnable, "Lazy SMP helper " + (++ count));
+					thread.setDaemon(true);
+					
+					return thread;
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Searches the given root with iterative deepening on all threads until the main thread reaches the given depth or the given time has passed
+	 * 
+	 * @param root	the node at which the search begins
+	 * @param maxDepth	the depth of the last iteration of the main thread
+	 * @param time	the time in milliseconds the search may take
+	 * @return	the best child of the root found by the main thread, or null if the root has no children
+	 * @throws IOException
+	 */
+	public MinimaxNode iterativeDeepening(MinimaxNode root, int maxDepth, long time) throws IOException
+	{
+		ArrayList<Future<MinimaxNode>> futures = new ArrayList<Future<MinimaxNode>>();
+		
+		for(final NegamaxSearch helper : helpers)
+		{
+			final MinimaxNode helperRoot = new MinimaxNode(0, new Game(root.getGame()), null, null, 0, true);
+			
+			helper.setEndgameDatabase(mainSearch.getEndgameDatabase());
+			
+			futures.add(executor.submit(new Callable<MinimaxNode>()
+			{
+				@Override
+				public MinimaxNode call() throws IOException
+				{
+					return helper.iterativeDeepening(helperRoot, NegamaxSearch.MAX_DEPTH);
+				}
+			}));
+		}
+		
+		try
+		{
+			return mainSearch.iterativeDeepening(root, maxDepth, time);
+		}
+		finally
+		{
+			for(NegamaxSearch helper : helpers)
+			{
+				helper.stop();
+			}
+			
+			for(Future<MinimaxNode> future : futures)
+			{
+				await(future);
+			}
+			
+			for(NegamaxSearch helper : helpers)
+			{
+				helper.clearStop();
+			}
+		}
+	}
+	
+	/**
+	 * Waits for the given helper search to return
+	 * 
+	 * @param future	the helper search
+	 */
+	private static void await(Future<MinimaxNode> future)
+	{
+		try
+		{
+			future.get();
+		}
+		catch(InterruptedException exception)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch(ExecutionException exception)
+		{
+			exception.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Stops the helper threads, after which this search may no longer be used
+	 */
+	public void shutdown()
+	{
+		if(executor != null)
+		{
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * @return	the number of nodes visited by all threads
+	 */
+	public long getNodeCount()
+	{
+		long nodeCount = mainSearch.getNodeCount();
+		
+		for(NegamaxSearch helper : helpers)
+		{
+			nodeCount += helper.getNodeCount();
+		}
+		
+		return nodeCount;
+	}
+	
+	/**
+	 * @return	the number of quiescence nodes visited by all threads
+	 */
+	public long getQuiescenceNodeCount()
+	{
+		long quiescenceNodeCount = mainSearch.getQuiescenceNodeCount();
+		
+		for(NegamaxSearch helper : helpers)
+		{
+			quiescenceNodeCount += helper.getQuiescenceNodeCount();
+		}
+		
+		return quiescenceNodeCount;
+	}
+	
+	/**
+	 * Resets the node counts of all threads
+	 */
+	public void resetNodeCount()
+	{
+		mainSearch.resetNodeCount();
+		
+		for(NegamaxSearch helper : helpers)
+		{
+			helper.resetNodeCount();
+		}
+	}
+	
+	/**
+	 * @return	the total number of searching threads, including the calling thread
+	 */
+	public int getThreads()
+	{
+		return helpers.length + 1;
+	}
+	
+	/**
+	 * @return	the search run on the calling thread
+	 */
+	public NegamaxSearch getMainSearch()
+	{
+		return mainSearch;
+	}
+}
@@ -0,0 +1,206 @@
+package game.player.ai;
+
+import java.util.ArrayList;
+
+/**
+ * A class representing a node of a monte carlo search tree
+ * The children of a node are in the order the board generates the moves of its position, so a child is found by the index of its move
+ * Nodes are shared by the threads of a tree parallel search, and all their methods synchronize on the node
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class MonteCarloNode
+{
+	/** The key of the move leading to this node, or zero at the root **/
+	private final int move;
+	
+	/** The children of this node, or null if it has not been expanded **/
+	private ArrayList<MonteCarloNode> children;
+	
+	/** The number of playouts through this node **/
+	private int visits;
+	
+	/** The total reward of the playouts through this node, for the player who moved into it **/
+	private double reward;
+	
+	/** The number of playouts in progress through this node, each counted as a lost playout until it returns **/
+	private int virtualLosses;
+	
+	/**
+	 * Parameterized constructor, initializes move to given value
+	 * 
+	 * @param move	the key of the move leading to this node
+	 */
+	public MonteCarloNode(int move)
+	{
+		this.move = move;
+	}
+	
+	/**
+	 * Creates the children of this node, one per move, unless it has already been expanded
+	 * 
+	 * @param moveKeys	the keys of the moves of the position of this node, in the order they are generated
+	 */
+	public synchronized void expand(int[] moveKeys)
+	{
+		if(children != null)
+		{
+			return;
+		}
+		
+		children = new ArrayList<MonteCarloNode>(moveKeys.length);
+		
+		for(int moveKey : moveKeys)
+		{
+			children.add(new MonteCarloNode(moveKey));
+		}
+	}
+	
+	/**
+	 * Returns the index of the child to be descended into, adding a virtual loss to it
+	 * Unvisited children come first, after which the child of highest upper confidence bound is chosen
+	 * 
+	 * @param exploration	the weight of the exploration term of the upper confidence bound
+	 * @return	the index of the chosen child
+	 */
+	public synchronized int select(double exploration)
+	{
+		int bestIndex = 0;
+		double bestBound = Double.NEGATIVE_INFINITY;
+		
+		double logVisits = Math.log(Math.max(visits + virtualLosses, 1));
+		
+		for(int i = 0; i < children.size(); i ++)
+		{
+			MonteCarloNode child = children.get(i);
+			
+			double bound = child.getUpperConfidenceBound(logVisits, exploration);
+			
+			if(bound > bestBound)
+			{
+				bestBound = bound;
+				bestIndex = i;
+			}
+		}
+		
+		children.get(bestIndex).addVirtualLoss();
+		
+		return bestIndex;
+	}
+	
+	/**
+	 * Returns the upper confidence bound of this node, counting virtual losses as lost playouts
+	 * 
+	 * @param logParentVisits	the logarithm of the number of playouts through the parent
+	 * @param exploration	the weight of the exploration term
+	 * @return	the upper confidence bound of this node, infinite if it has no playouts
+	 */
+	private synchronized double getUpperConfidenceBound(double logParentVisits, double exploration)
+	{
+		int count = visits + virtualLosses;
+		
+		if(count == 0)
+		{
+			return Double.POSITIVE_INFINITY;
+		}
+		
+		return reward/count + exploration*Math.sqrt(logParentVisits/count);
+	}
+	
+	/**
+	 * Adds a virtual loss to this node, discouraging other threads from following the same path
+	 */
+	public synchronized void addVirtualLoss()
+	{
+		virtualLosses ++;
+	}
+	
+	/**
+	 * Records the result of a playout through this node, removing the virtual loss added when it was selected
+	 * 
+	 * @param result	the reward of the playout for the player who moved into this node, between zero and one
+	 * @param virtual	whether or not a virtual loss was added to this node
+	 */
+	public synchronized void update(double result, boolean virtual)
+	{
+		visits ++;
+		reward += result;
+		
+		if(virtual)
+		{
+			virtualLosses --;
+		}
+	}
+	
+	/**
+	 * @return	the child with the most playouts, or null if this node has no children
+	 */
+	public synchronized MonteCarloNode getMostVisitedChild()
+	{
+		MonteCarloNode best = null;
+		
+		if(children != null)
+		{
+			for(MonteCarloNode child : children)
+			{
+				if(best == null || child.getVisits() > best.getVisits())
+				{
+					best = child;
+				}
+			}
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * Returns the child at the given index
+	 * 
+	 * @param index	the index of the move leading to the child
+	 * @return	the child at the given index
+	 */
+	public synchronized MonteCarloNode getChild(int index)
+	{
+		return children.get(index);
+	}
+	
+	/**
+	 * @return	the number of children of this node, zero if it has not been expanded
+	 */
+	public synchronized int getChildCount()
+	{
+		return children == null ? 0 : children.size();
+	}
+	
+	/**
+	 * @return	whether or not the children of this node have been created
+	 */
+	public synchronized boolean isExpanded()
+	{
+		return children != null;
+	}
+	
+	/**
+	 * @return	the key of the move leading to this node
+	 */
+	public int getMove()
+	{
+		return move;
+	}
+	
+	/**
+	 * @return	the number of playouts through this node
+	 */
+	public synchronized int getVisits()
+	{
+		return visits;
+	}
+	
+	/**
+	 * @return	the average reward of the playouts through this node, for the player who moved into it
+	 */
+	public synchronized double getAverageReward()
+	{
+		return visits == 0 ? 0 : reward/visits;
+	}
+}
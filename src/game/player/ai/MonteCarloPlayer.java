@@ -0,0 +1,374 @@
+package game.player.ai;
+
+import game.Game;
+import game.move.Move;
+import game.piece.Piece.Loyalty;
+import game.player.Player;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class representing a player choosing its moves by monte carlo tree search with upper confidence bounds
+ * Playouts follow the rules of the board with random moves, captures preferred, and positions still running after a fixed length are scored by material
+ * The search is anytime, bounded by a number of playouts and a time, and may run several threads on one shared tree using virtual losses
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class MonteCarloPlayer extends Player
+{
+	/** The default time in milliseconds of a search **/
+	private static final long DEFAULT_TIME = 2000;
+	
+	/** The weight of the exploration term of the upper confidence bound **/
+	private static final double EXPLORATION = Math.sqrt(2);
+	
+	/** The number of moves after which a playout is scored by material **/
+	private static final int MAX_PLAYOUT_LENGTH = 150;
+	
+	/** The probability with which a playout prefers a capture over a random move **/
+	private static final double CAPTURE_PROBABILITY = 0.75;
+	
+	/** The maximum number of playouts of a search **/
+	private long playouts = Long.MAX_VALUE;
+	
+	/** The maximum time in milliseconds of a search **/
+	private long time = DEFAULT_TIME;
+	
+	/** The number of threads searching the tree **/
+	private int threads = 1;
+	
+	/** The executor running the searching threads other than the calling thread, or null if there are none **/
+	private ExecutorService executor;
+	
+	/**
+	 * Parameterized constructor, initializes name, loyalty and game
+	 * 
+	 * @param name	the name of this player
+	 * @param loyalty	the loyalty of this player
+	 * @param game	the game of this player
+	 */
+	public MonteCarloPlayer(String name, Loyalty loyalty, Game game)
+	{
+		super(name, loyalty, game);
+	}
+	
+	/**
+	 * Returns the move executed this turn, the most visited child of the root once the budget is spent
+	 * 
+	 * @return	the move to be executed this turn
+	 * @throws IOException 
+	 */
+	@Override
+	public Move getThisTurnMove() throws IOException
+	{
+		long initialTime = System.currentTimeMillis();
+		
+		ArrayList<Move> possibleMoves = getPossibleMoves();
+		
+		if(isDefeated())
+		{
+			return null;
+		}
+		
+		if(possibleMoves.size() == 1)
+		{
+			return possibleMoves.get(0);
+		}
+		
+		final Game rootGame = new Game(getGame());
+		final MonteCarloNode root = new MonteCarloNode(0);
+		final AtomicLong playoutCount = new AtomicLong();
+		final long deadline = time == Long.MAX_VALUE ? Long.MAX_VALUE : initialTime + time;
+		
+		ArrayList<Future<Void>> futures = new ArrayList<Future<Void>>();
+		
+		for(int i = 1; i < threads; i ++)
+		{
+			futures.add(executor.submit(new Callable<Void>()
+			{
+				@Override
+				public Void call() throws IOException
+				{
+					search(rootGame, root, playoutCount, deadline);
+					
+					return null;
+				}
+			}));
+		}
+		
+		search(rootGame, root, playoutCount, deadline);
+		
+		for(Future<Void> future : futures)
+		{
+			try
+			{
+				future.get();
+			}
+			catch(InterruptedException exception)
+			{
+				Thread.currentThread().interrupt();
+			}
+			catch(ExecutionException exception)
+			{
+				exception.printStackTrace();
+			}
+		}
+		
+		/** The root has no children if no playout was run, when the deadline had already passed or every thread failed **/
+		MonteCarloNode best = root.getMostVisitedChild();
+		Move chosenMove = possibleMoves.get(0);
+		
+		if(best == null)
+		{
+			System.out.println("No playouts run, move chosen: " + chosenMove);
+			
+			return chosenMove;
+		}
+		
+		Move bestMove = Move.getMove(possibleMoves, best.getMove());
+		
+		if(bestMove != null)
+		{
+			chosenMove = bestMove;
+		}
+		
+		System.out.println("Move chosen: " + chosenMove + " with average reward " + best.getAverageReward());
+		System.out.println("Playouts: " + Math.min(playoutCount.get(), playouts));
+		System.out.println("Time taken: " + (System.currentTimeMillis() - initialTime)/1000.0 + " seconds");
+		
+		return chosenMove;
+	}
+	
+	/**
+	 * Runs playouts from the given root until the playout budget or the deadline is reached
+	 * 
+	 * @param rootGame	the game at the root, copied for every playout
+	 * @param root	the root of the shared tree
+	 * @param playoutCount	the number of playouts started by all threads
+	 * @param deadline	the time in milliseconds at which the search ends
+	 * @throws IOException
+	 */
+	private void search(Game rootGame, MonteCarloNode root, AtomicLong playoutCount, long deadline) throws IOException
+	{
+		while(playoutCount.getAndIncrement() < playouts && System.currentTimeMillis() < deadline)
+		{
+			runPlayout(new Game(rootGame), root);
+		}
+	}
+	
+	/**
+	 * Descends the tree from the root to a new node, plays the game out from there and backs the result up the path
+	 * 
+	 * @param game	a copy of the game at the root, advanced along the path
+	 * @param root	the root of the shared tree
+	 * @throws IOException
+	 */
+	private void runPlayout(Game game, MonteCarloNode root) throws IOException
+	{
+		ArrayList<MonteCarloNode> path = new ArrayList<MonteCarloNode>();
+		MonteCarloNode node = root;
+		
+		path.add(node);
+		
+		boolean expanded = true;
+		double result;
+		
+		while(true)
+		{
+			ArrayList<Move> moves = game.getBoard().getPossibleMoves(game.getTurn());
+			
+			if(moves.isEmpty())
+			{
+				/** The player to move has lost **/
+				result = 0;
+				break;
+			}
+			
+			if(!expanded)
+			{
+				result = playOut(game, moves);
+				break;
+			}
+			
+			expanded = node.isExpanded();
+			
+			if(!expanded)
+			{
+				node.expand(getKeys(moves));
+			}
+			
+			int index = node.select(EXPLORATION);
+			
+			game.getBoard().executeMove(moves.get(index));
+			game.setTurn(game.getTurn().getOther());
+			
+			node = node.getChild(index);
+			path.add(node);
+			
+			expanded = expanded && node.getVisits() > 0;
+		}
+		
+		/** The result is relative to the player to move at the last node, and flips at every level **/
+		for(int i = path.size() - 1; i >= 0; i --)
+		{
+			result = 1 - result;
+			path.get(i).update(result, i > 0);
+		}
+	}
+	
+	/**
+	 * Plays random moves from the given game until a player has no moves or the maximum playout length is reached
+	 * 
+	 * @param game	the game to be played out
+	 * @param moves	the possible moves of the player to move
+	 * @return	the reward of the playout for the player to move at its start, between zero and one
+	 * @throws IOException
+	 */
+	private static double playOut(Game game, ArrayList<Move> moves) throws IOException
+	{
+		Loyalty player = game.getTurn();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		
+		for(int length = 0; length < MAX_PLAYOUT_LENGTH; length ++)
+		{
+			if(moves.isEmpty())
+			{
+				return game.getTurn() == player ? 0 : 1;
+			}
+			
+			game.getBoard().executeMove(chooseMove(moves, random));
+			game.setTurn(game.getTurn().getOther());
+			
+			moves = game.getBoard().getPossibleMoves(game.getTurn());
+		}
+		
+		double value = NegamaxSearch.evaluate(game);
+		
+		if(game.getTurn() != player)
+		{
+			value = -value;
+		}
+		
+		return value > 0 ? 1 : (value < 0 ? 0 : 0.5);
+	}
+	
+	/**
+	 * Returns a random move of the given moves, preferring captures
+	 * 
+	 * @param moves	the moves to be chosen from
+	 * @param random	the random number generator of the thread
+	 * @return	the chosen move
+	 */
+	private static Move chooseMove(ArrayList<Move> moves, ThreadLocalRandom random)
+	{
+		if(random.nextDouble() < CAPTURE_PROBABILITY)
+		{
+			int start = random.nextInt(moves.size());
+			
+			for(int i = 0; i < moves.size(); i ++)
+			{
+				Move move = moves.get((start + i) % moves.size());
+				
+				if(!move.getJumped().isEmpty())
+				{
+					return move;
+				}
+			}
+		}
+		
+		return moves.get(random.nextInt(moves.size()));
+	}
+	
+	/**
+	 * Returns the keys of the given moves, in the same order
+	 * 
+	 * @param moves	the moves whose keys are returned
+	 * @return	the keys of the moves
+	 */
+	private static int[] getKeys(ArrayList<Move> moves)
+	{
+		int[] keys = new int[moves.size()];
+		
+		for(int i = 0; i < keys.length; i ++)
+		{
+			keys[i] = moves.get(i).getKey();
+		}
+		
+		return keys;
+	}
+	
+	/**
+	 * Sets the maximum number of playouts of a search
+	 * 
+	 * @param playouts	the maximum number of playouts, positive
+	 * @throws IllegalArgumentException	if the number of playouts is not positive
+	 */
+	public void setPlayouts(long playouts)
+	{
+		if(playouts <= 0)
+		{
+			throw new IllegalArgumentException("Number of playouts not positive: " + playouts);
+		}
+		
+		this.playouts = playouts;
+	}
+	
+	/**
+	 * Sets the maximum time of a search
+	 * 
+	 * @param time	the maximum time in milliseconds, positive
+	 * @throws IllegalArgumentException	if the time is not positive
+	 */
+	public void setTime(long time)
+	{
+		if(time <= 0)
+		{
+			throw new IllegalArgumentException("Search time not positive: " + time);
+		}
+		
+		this.time = time;
+	}
+	
+	/**
+	 * Sets the number of threads searching the shared tree
+	 * 
+	 * @param threads	the number of threads, including the calling thread
+	 */
+	public void setThreads(int threads)
+	{
+		if(executor != null)
+		{
+			executor.shutdown();
+			executor = null;
+		}
+		
+		this.threads = Math.max(threads, 1);
+		
+		if(this.threads > 1)
+		{
+			executor = Executors.newFixedThreadPool(this.threads - 1, new ThreadFactory()
+			{
+				/** The number of threads created so far **/
+				private int count;
+				
+				@Override
+				public Thread newThread(Runnable runnable)
+				{
+					Thread thread = new Thread(runnable, "Monte carlo search " + (++ count));
+					thread.setDaemon(true);
+					
+					return thread;
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,1973 @@
+package game.player.ai;
+
+import game.Game;
+import game.board.Board;
+import game.board.CheckersBoard;
+import game.board.ChessBoard;
+import game.board.node.Node;
+import game.move.ChessMove;
+import game.move.Move;
+import game.piece.Piece;
+import game.piece.Piece.Loyalty;
+import game.piece.checkersPieces.Soldier;
+import game.piece.chessPieces.King;
+import game.piece.chessPieces.Knight;
+import game.piece.chessPieces.Pawn;
+import game.piece.chessPieces.Queen;
+import game.piece.chessPieces.Rook;
+import game.player.ai.TranspositionEntry.Bound;
+import game.player.ai.endgame.EndgameDatabase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * A class performing a negamax alpha-beta search backed by a transposition table
+ * Values are always relative to the player to move at the searched position
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class NegamaxSearch
+{
+	/** The value of one unit of material, piece worths being scaled by it to integer values **/
+	public static final int VALUE_SCALE = 100;
+	
+	/** The value of a position won on the spot, a win n plies from the root being worth n less so that faster wins are preferred **/
+	public static final int WIN_VALUE = 30000;
+	
+	/** A value exceeding every position value, used as the initial search window **/
+	private static final int INFINITY = WIN_VALUE + 1;
+	
+	/** The width of a null window, the smallest difference between two values **/
+	private static final int NULL_WINDOW = 1;
+	
+	/** The initial half width of an aspiration window **/
+	private static final int ASPIRATION_WINDOW = VALUE_SCALE;
+	
+	/** The factor an aspiration window is widened by after a failure **/
+	private static final int ASPIRATION_GROWTH = 4;
+	
+	/** The half width beyond which a failed aspiration window is opened completely **/
+	private static final int ASPIRATION_LIMIT = 64*VALUE_SCALE;
+	
+	/** The value of a position the endgame database knows to be won on the spot, below any win found by the search itself **/
+	private static final int DATABASE_WIN_VALUE = WIN_VALUE/2;
+	
+	/** The maximum depth of a timed iterative deepening search **/
+	public static final int MAX_DEPTH = 64;
+	
+	/** The number of nodes between two checks of the deadline **/
+	private static final int DEADLINE_POLL_INTERVAL = 32;
+	
+	/** The maximum distance from the root for which killer moves and repetitions are kept **/
+	private static final int MAX_PLY = 128;
+	
+	/** The value at or above which a position is known to be won, by the search or by the endgame database **/
+	private static final int WIN_THRESHOLD = DATABASE_WIN_VALUE - MAX_PLY - EndgameDatabase.MAX_DISTANCE;
+	
+	/** The number of killer moves kept per ply **/
+	private static final int KILLER_SLOTS = 2;
+	
+	/** The history value beyond which the history table is halved **/
+	private static final int HISTORY_LIMIT = 1 << 20;
+	
+	/** The maximum number of entries of the history and countermove tables, beyond which moves of large boards share entries **/
+	private static final int MAX_ORDERING_TABLE_SIZE = 1 << 16;
+	
+	/** The ordering score of the move stored in the transposition table **/
+	private static final int HASH_MOVE_SCORE = 1 << 30;
+	
+	/** The ordering score added to captures and promotions **/
+	private static final int CAPTURE_SCORE = 1 << 28;
+	
+	/** The minimum remaining depth at which late moves are reduced **/
+	private static final int REDUCTION_MIN_DEPTH = 3;
+	
+	/** The number of moves searched at full depth before later moves are reduced **/
+	private static final int REDUCTION_MIN_INDEX = 3;
+	
+	/** The number of move indices the reduction table covers, later moves sharing the last column **/
+	private static final int REDUCTION_TABLE_INDICES = 64;
+	
+	/** The default constant term of the late move reduction formula **/
+	public static final double DEFAULT_REDUCTION_BASE = 0.5;
+	
+	/** The default divisor of the logarithmic term of the late move reduction formula **/
+	public static final double DEFAULT_REDUCTION_DIVISOR = 2.5;
+	
+	/** The minimum remaining depth at which a null move is tried **/
+	private static final int NULL_MOVE_MIN_DEPTH = 3;
+	
+	/** The remaining depth beyond which the null move reduction is increased by one ply **/
+	private static final int NULL_MOVE_DEEP_DEPTH = 6;
+	
+	/** The depth a null move is reduced by, besides the ply it consumes **/
+	private static final int NULL_MOVE_REDUCTION = 2;
+	
+	/** The number of non-pawn pieces at or below which a null move cutoff is verified, as zugzwang becomes likely **/
+	private static final int ZUGZWANG_PIECES = 2;
+	
+	/** The minimum remaining depth at which the children of a node are probed for an enhanced transposition cutoff **/
+	private static final int TRANSPOSITION_CUTOFF_MIN_DEPTH = 3;
+	
+	/** The minimum remaining depth at which a node without a hash move searches for one at a reduced depth **/
+	private static final int INTERNAL_DEEPENING_MIN_DEPTH = 4;
+	
+	/** The depth the search for a missing hash move is reduced by **/
+	private static final int INTERNAL_DEEPENING_REDUCTION = 2;
+	
+	/** The remaining depth of pre-frontier nodes, where razoring is tried **/
+	private static final int RAZORING_DEPTH = 2;
+	
+	/** The remaining depth of frontier nodes, where futility pruning is tried **/
+	private static final int FUTILITY_DEPTH = 1;
+	
+	/** The factor history values are scaled by, leaving room below for the killer and countermove tie breaks **/
+	private static final int HISTORY_SCALE = KILLER_SLOTS + 2;
+	
+	/** The number of extension units making up one ply, extensions being granted in fractions of a ply **/
+	private static final int ONE_PLY = 4;
+	
+	/** The extension in units of a move jumping a piece **/
+	private static final int JUMP_EXTENSION = 2;
+	
+	/** The extension in units of a move promoting to a checkers king or a queen **/
+	private static final int PROMOTION_EXTENSION = 3;
+	
+	/** The extension in units of the only legal move of a position **/
+	private static final int SINGLE_REPLY_EXTENSION = ONE_PLY;
+	
+	/** The default number of plies the extensions along one path may add up to **/
+	public static final int DEFAULT_EXTENSION_BUDGET = 2;
+	
+	/** The transposition table of this search **/
+	private TranspositionTable transpositionTable;
+	
+	/** The number of nodes visited by this search **/
+	private long nodeCount;
+	
+	/** The number of quiescence nodes visited by this search **/
+	private long quiescenceNodeCount;
+	
+	/** The boolean determining whether or not captures are resolved at the horizon **/
+	private boolean quiescenceSearch = true;
+	
+	/** The time in milliseconds at which the search in progress is aborted **/
+	private long deadline = Long.MAX_VALUE;
+	
+	/** The number of nodes visited since the deadline was last checked **/
+	private int pollCount;
+	
+	/** Whether or not searches have been asked to stop, set from other threads **/
+	private volatile boolean stopped;
+	
+	/** The best root child found so far by the iteration in progress **/
+	private MinimaxNode partialBest;
+	
+	/** The depth of the last iteration completed **/
+	private int completedDepth;
+	
+	/** The index of this search among the threads of a parallel search, zero for the main thread **/
+	private int helperIndex;
+	
+	/** The killer moves of each ply, quiet moves which recently caused a cutoff at that ply **/
+	private int[][] killerMoves;
+	
+	/** The history table, indexed by start index times node count plus end index, masked to the size of the table **/
+	private int[] history;
+	
+	/** The countermove table, indexed like the history table by the previous move **/
+	private int[] countermoves;
+	
+	/** The number of nodes of the board the ordering tables are sized for **/
+	private int tableNodeCount;
+	
+	/** The mask reducing a move to an index of the ordering tables **/
+	private int tableMask;
+	
+	/** The late move reductions, indexed by remaining depth and move index **/
+	private int[][] reductions;
+	
+	/** The boolean determining whether or not late quiet moves are searched to a reduced depth **/
+	private boolean lateMoveReductions = true;
+	
+	/** The boolean determining whether or not null move pruning is used on chess boards **/
+	private boolean nullMovePruning = true;
+	
+	/** The boolean determining whether or not quiet moves are pruned at frontier nodes far below alpha **/
+	private boolean futilityPruning = true;
+	
+	/** The boolean determining whether or not pre-frontier nodes far below alpha are resolved by quiescence search **/
+	private boolean razoring = true;
+	
+	/** The boolean determining whether or not the children of a node are probed in the transposition table before any is searched **/
+	private boolean enhancedTranspositionCutoffs = true;
+	
+	/** The boolean determining whether or not nodes without a hash move search for one at a reduced depth **/
+	private boolean internalIterativeDeepening = true;
+	
+	/** The boolean determining whether or not moves after the first are searched with null windows **/
+	private boolean principalVariationSearch = true;
+	
+	/** The boolean determining whether or not iterations are searched within aspiration windows **/
+	private boolean aspirationWindows = true;
+	
+	/** The boolean determining whether or not iterations are searched by mtd(f) rather than within aspiration windows **/
+	private boolean mtdf;
+	
+	/** The boolean determining whether or not jumps, promotions and single replies are searched deeper **/
+	private boolean extensions = true;
+	
+	/** The number of extension units the extensions along one path may add up to **/
+	private int extensionBudget = DEFAULT_EXTENSION_BUDGET*ONE_PLY;
+	
+	/** The endgame database probed below the root, or null if none is used **/
+	private EndgameDatabase endgameDatabase;
+	
+	/** The hashes of the positions since the last irreversible move of the game, followed by those along the search path **/
+	private long[] pathHashes = new long[MAX_PLY];
+	
+	/** The index in the path hashes of the root **/
+	private int rootOffset;
+	
+	/** The earliest ply whose hash is known, negative when positions of the game before the root are **/
+	private int pathStart;
+	
+	/** The number of reversible plies leading to each ply of the search path, including those played in the game before the root **/
+	private int[] reversiblePlies = new int[MAX_PLY];
+	
+	/** The number of reversible plies after which the searched game is drawn, or zero if it never is **/
+	private int quietPlyLimit;
+	
+	/**
+	 * Parameterized constructor, initializes transposition table to the given table
+	 * 
+	 * @param transpositionTable	the transposition table to be used
+	 */
+	public NegamaxSearch(TranspositionTable transpositionTable)
+	{
+		this.transpositionTable = transpositionTable;
+		this.killerMoves = new int[MAX_PLY][KILLER_SLOTS];
+		
+		setReductionParameters(DEFAULT_REDUCTION_BASE, DEFAULT_REDUCTION_DIVISOR);
+	}
+	
+	/**
+	 * Searches the given root with iterative deepening up to the given depth
+	 * 
+	 * @param root	the node at which the search begins
+	 * @param maxDepth	the depth of the last iteration
+	 * @return	the best child of the root with its value set, or null if the root has no children
+	 * @throws IOException
+	 */
+	public MinimaxNode iterativeDeepening(MinimaxNode root, int maxDepth) throws IOException
+	{
+		return iterativeDeepening(root, maxDepth, Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Searches the given root with iterative deepening until the given depth is reached or the given time has passed
+	 * The deadline is polled every few nodes, and an iteration still running when it passes is abandoned
+	 * The best child of the last completed iteration is returned, unless the abandoned iteration had already found a better one
+	 * 
+	 * @param root	the node at which the search begins
+	 * @param maxDepth	the depth of the last iteration
+	 * @param time	the time in milliseconds the search may take
+	 * @return	the best child of the root with its value set, or null if the root has no children
+	 * @throws IOException
+	 */
+	public MinimaxNode iterativeDeepening(MinimaxNode root, int maxDepth, long time) throws IOException
+	{
+		deadline = time == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + time;
+		completedDepth = 0;
+		
+		if(helperIndex == 0)
+		{
+			transpositionTable.newSearch();
+		}
+		
+		clearKillerMoves();
+		ageHistory();
+		
+		MinimaxNode best = null;
+		
+		try
+		{
+			for(int depth = 1 + helperIndex % 2; depth <= maxDepth; depth ++)
+			{
+				partialBest = null;
+				
+				int guess = best == null ? 0 : (int) best.getValue();
+				
+				best = mtdf ? mtdfSearch(root, depth, guess) : aspirationSearch(root, depth, guess);
+				
+				completedDepth = depth;
+				
+				if(best == null || isWinOrLoss(best.getValue()))
+				{
+					break;
+				}
+			}
+		}
+		catch(SearchTimeoutException exception)
+		{
+			if(partialBest != null)
+			{
+				best = partialBest;
+			}
+			else if(best == null && !root.getChildren().isEmpty())
+			{
+				best = (MinimaxNode) root.getChildren().get(0);
+			}
+		}
+		finally
+		{
+			deadline = Long.MAX_VALUE;
+			partialBest = null;
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * Searches the given root with iterative deepening for the given number of best moves, until the given depth is reached or the given time has passed
+	 * Each line is found by a full window search of the root moves not yet chosen at that depth, so every value returned is exact
+	 * The lines of the last completed iteration are returned, or those of the abandoned iteration if none completed
+	 * 
+	 * @param root	the node at which the search begins
+	 * @param lines	the number of best moves to be found
+	 * @param maxDepth	the depth of the last iteration
+	 * @param time	the time in milliseconds the search may take
+	 * @return	the lines found, best first, empty if the root has no children
+	 * @throws IOException
+	 */
+	public ArrayList<PrincipalVariation> multiPv(MinimaxNode root, int lines, int maxDepth, long time) throws IOException
+	{
+		deadline = time == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + time;
+		completedDepth = 0;
+		
+		transpositionTable.newSearch();
+		
+		clearKillerMoves();
+		ageHistory();
+		
+		long hash = ZobristHash.getHash(root.getGame());
+		
+		ArrayList<PrincipalVariation> completed = new ArrayList<PrincipalVariation>();
+		ArrayList<PrincipalVariation> current = completed;
+		
+		try
+		{
+			for(int depth = 1; depth <= maxDepth; depth ++)
+			{
+				current = new ArrayList<PrincipalVariation>();
+				
+				ArrayList<MinimaxSuperNode> remaining = new ArrayList<MinimaxSuperNode>(root.getChildren());
+				
+				while(current.size() < lines && !remaining.isEmpty())
+				{
+					MinimaxNode best = searchRoot(root, remaining, depth, -INFINITY, INFINITY, current.isEmpty());
+					
+					remaining.remove(best);
+					
+					current.add(new PrincipalVariation(best, best.getValue(), getPrincipalVariation(best, hash, depth)));
+				}
+				
+				sortLines(current);
+				
+				completed = current;
+				completedDepth = depth;
+			}
+		}
+		catch(SearchTimeoutException exception)
+		{
+			if(completed.isEmpty())
+			{
+				completed = current;
+			}
+		}
+		finally
+		{
+			deadline = Long.MAX_VALUE;
+			partialBest = null;
+		}
+		
+		return completed;
+	}
+	
+	/**
+	 * Sorts the given lines best first, as pruning may find a later line better than an earlier one
+	 * 
+	 * @param lines	the lines to be sorted
+	 */
+	private static void sortLines(ArrayList<PrincipalVariation> lines)
+	{
+		Collections.sort(lines, new Comparator<PrincipalVariation>()
+		{
+			@Override
+			public int compare(PrincipalVariation first, PrincipalVariation second)
+			{
+				return Double.compare(second.getValue(), first.getValue());
+			}
+		});
+	}
+	
+	/**
+	 * Returns the principal variation beginning with the given child of the root, following the best moves stored in the transposition table
+	 * 
+	 * @param child	the child of the root the line begins with
+	 * @param rootHash	the hash of the root
+	 * @param length	the maximum number of moves of the line
+	 * @return	the moves of the line, beginning with the move to the child
+	 * @throws IOException
+	 */
+	private ArrayList<Move> getPrincipalVariation(MinimaxNode child, long rootHash, int length) throws IOException
+	{
+		ArrayList<Move> line = new ArrayList<Move>();
+		
+		line.add(child.getMove());
+		
+		MinimaxNodeContents contents = child.getContents();
+		long hash = ZobristHash.getNextHash(rootHash, child.getMove());
+		
+		while(line.size() < length)
+		{
+			int bestMove = TranspositionEntry.getBestMove(transpositionTable.get(hash));
+			
+			if(bestMove == 0)
+			{
+				break;
+			}
+			
+			Move next = Move.getMove(contents.getNextMoves(), bestMove);
+			
+			if(next == null)
+			{
+				break;
+			}
+			
+			line.add(next);
+			
+			hash = ZobristHash.getNextHash(hash, next);
+			contents = contents.getNextContents(next);
+		}
+		
+		return line;
+	}
+	
+	/**
+	 * Searches the given root within a window centred on the given value, widening it on failure
+	 * 
+	 * @param root	the node at which the search begins
+	 * @param depth	the depth to be searched
+	 * @param previousValue	the value of the previous iteration
+	 * @return	the best child of the root with its value set, or null if the root has no children
+	 * @throws IOException
+	 */
+	private MinimaxNode aspirationSearch(MinimaxNode root, int depth, int previousValue) throws IOException
+	{
+		if(!aspirationWindows || depth == 1)
+		{
+			return searchRoot(root, depth, -INFINITY, INFINITY);
+		}
+		
+		int delta = ASPIRATION_WINDOW;
+		int alpha = previousValue - delta;
+		int beta = previousValue + delta;
+		
+		while(true)
+		{
+			MinimaxNode best = searchRoot(root, depth, alpha, beta);
+			
+			if(best == null)
+			{
+				return null;
+			}
+			
+			if(best.getValue() <= alpha && alpha > -INFINITY)
+			{
+				delta *= ASPIRATION_GROWTH;
+				alpha = delta > ASPIRATION_LIMIT ? -INFINITY : previousValue - delta;
+			}
+			else if(best.getValue() >= beta && beta < INFINITY)
+			{
+				delta *= ASPIRATION_GROWTH;
+				beta = delta > ASPIRATION_LIMIT ? INFINITY : previousValue + delta;
+			}
+			else
+			{
+				return best;
+			}
+		}
+	}
+	
+	/**
+	 * Searches the given root by mtd(f), a sequence of null window searches converging on its value from the given guess
+	 * Each search only tells whether the value lies above or below its window, and the transposition table keeps the bounds found so that later searches revisit little
+	 * 
+	 * @param root	the node at which the search begins
+	 * @param depth	the depth to be searched
+	 * @param guess	the first guess of the value, usually that of the previous iteration
+	 * @return	the best child of the root with its value set, or null if the root has no children
+	 * @throws IOException
+	 */
+	private MinimaxNode mtdfSearch(MinimaxNode root, int depth, int guess) throws IOException
+	{
+		int lowerBound = -INFINITY;
+		int upperBound = INFINITY;
+		int value = guess;
+		
+		MinimaxNode best = null;
+		
+		while(lowerBound < upperBound)
+		{
+			int beta = value == lowerBound ? value + NULL_WINDOW : value;
+			
+			MinimaxNode probe = searchRoot(root, depth, beta - NULL_WINDOW, beta);
+			
+			if(probe == null)
+			{
+				return null;
+			}
+			
+			value = (int) probe.getValue();
+			
+			if(value < beta)
+			{
+				upperBound = value;
+			}
+			else
+			{
+				/** Only a search failing high proves its best child, as a failing low one bounds every child alike **/
+				lowerBound = value;
+				best = probe;
+			}
+		}
+		
+		best.setValue(lowerBound);
+		
+		return best;
+	}
+	
+	/**
+	 * Searches every child of the given root to the given depth within the given window
+	 * Children are ordered by the values of the previous iteration, and their values are set
+	 * 
+	 * @param root	the node at which the search begins
+	 * @param depth	the depth to be searched
+	 * @param alpha	the lower bound of the search window
+	 * @param beta	the upper bound of the search window
+	 * @return	the best child of the root with its value set, or null if the root has no children
+	 * @throws IOException
+	 */
+	public MinimaxNode searchRoot(MinimaxNode root, int depth, int alpha, int beta) throws IOException
+	{
+		return searchRoot(root, root.getChildren(), depth, alpha, beta, true);
+	}
+	
+	/**
+	 * Returns the child of the given root the endgame database plays, if it knows the root to be won or lost
+	 * The winning player takes the shortest win and the losing player holds out the longest, so that known endgames are played without searching
+	 * 
+	 * @param root	the node whose move is chosen
+	 * @return	the best child of the root with its value set, or null if the root is not a known win or loss, or the quiet move rule may draw it first
+	 */
+	public MinimaxNode getDatabaseNode(MinimaxNode root)
+	{
+		if(endgameDatabase == null)
+		{
+			return null;
+		}
+		
+		Game game = root.getGame();
+		
+		int code = endgameDatabase.probe(game);
+		int reversible = getReversiblePlies(game, ZobristHash.getHash(game));
+		
+		if(code == EndgameDatabase.UNKNOWN || code == 0 || !isBeforeQuietPlyLimit(code, reversible, game.getQuietPlyLimit()))
+		{
+			return null;
+		}
+		
+		MinimaxNode best = null;
+		
+		for(MinimaxSuperNode child : root.getChildren())
+		{
+			MinimaxNode childNode = (MinimaxNode) child;
+			
+			int childCode = endgameDatabase.probe(childNode.getGame());
+			int childReversible = childNode.getMove().isIrreversible() ? 0 : reversible + 1;
+			
+			if(childCode == EndgameDatabase.UNKNOWN || !isBeforeQuietPlyLimit(childCode, childReversible, game.getQuietPlyLimit()))
+			{
+				return null;
+			}
+			
+			childNode.setValue(-getDatabaseValue(childCode, 1));
+			
+			if(best == null || childNode.getValue() > best.getValue())
+			{
+				best = childNode;
+			}
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * Searches the given children of the given root to the given depth within the given window
+	 * The result is only stored in the transposition table if the children searched include the best move of the root
+	 * 
+	 * @param root	the node at which the search begins
+	 * @param children	the children of the root to be searched
+	 * @param depth	the depth to be searched
+	 * @param alpha	the lower bound of the search window
+	 * @param beta	the upper bound of the search window
+	 * @param store	whether or not the result is stored in the transposition table
+	 * @return	the best of the given children with its value set, or null if no children are given
+	 * @throws IOException
+	 */
+	private MinimaxNode searchRoot(MinimaxNode root, ArrayList<MinimaxSuperNode> children, int depth, int alpha, int beta, boolean store) throws IOException
+	{
+		if(children.isEmpty())
+		{
+			return null;
+		}
+		
+		long hash = ZobristHash.getHash(root.getGame());
+		
+		preparePath(root.getGame(), hash);
+		prepareOrderingTables(root.getBoard().getNodes().size());
+		sortChildren(children, hash);
+		
+		if(helperIndex > 0 && children.size() > 2)
+		{
+			Collections.rotate(children.subList(1, children.size()), helperIndex);
+		}
+		
+		int originalAlpha = alpha;
+		
+		MinimaxNode best = null;
+		
+		for(MinimaxSuperNode child : children)
+		{
+			MinimaxNode childNode = (MinimaxNode) child;
+			
+			updateReversiblePlies(1, childNode.getMove());
+			
+			int value = searchChild(childNode.getContents(), ZobristHash.getNextHash(hash, childNode.getMove()), depth - 1, alpha, beta, 1, best == null, childNode.getMove().getKey(), 0);
+			
+			childNode.setValue(value);
+			
+			if(best == null || value > best.getValue())
+			{
+				best = childNode;
+			}
+			
+			if(value > alpha)
+			{
+				partialBest = childNode;
+			}
+			
+			alpha = Math.max(alpha, value);
+			
+			if(alpha >= beta)
+			{
+				break;
+			}
+		}
+		
+		if(store)
+		{
+			Bound bound = best.getValue() <= originalAlpha ? Bound.UPPER : (best.getValue() >= beta ? Bound.LOWER : Bound.EXACT);
+			
+			transpositionTable.put(hash, depth, (int) best.getValue(), bound, best.getMove().getKey());
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * Returns the value of the given child relative to its parent
+	 * In principal variation search, children other than the first are searched with a null window and only re-searched if they fail high
+	 * 
+	 * @param contents	the contents of the child
+	 * @param hash	the hash of the child
+	 * @param depth	the remaining depth to be searched from the child
+	 * @param alpha	the lower bound of the search window of the parent
+	 * @param beta	the upper bound of the search window of the parent
+	 * @param ply	the distance of the child from the root
+	 * @param first	whether or not the child is the first searched
+	 * @param previousMove	the key of the move leading to the child
+	 * @param extended	the extension units granted along the path to the child
+	 * @return	the value of the child, relative to the player to move at the parent
+	 * @throws IOException
+	 */
+	private int searchChild(MinimaxNodeContents contents, long hash, int depth, int alpha, int beta, int ply, boolean first, int previousMove, int extended) throws IOException
+	{
+		if(first || !principalVariationSearch || beta - alpha <= NULL_WINDOW)
+		{
+			return -negamax(contents, hash, depth, -beta, -alpha, ply, previousMove, extended);
+		}
+		
+		int value = -negamax(contents, hash, depth, -alpha - NULL_WINDOW, -alpha, ply, previousMove, extended);
+		
+		if(value > alpha && value < beta)
+		{
+			value = -negamax(contents, hash, depth, -beta, -alpha, ply, previousMove, extended);
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Returns the negamax value of the given contents, searched with the pruning and move ordering of this search
+	 * Lets other searches hand the nodes near their horizon to a negamax search
+	 * 
+	 * @param contents	the contents to be evaluated
+	 * @param hash	the hash of the contents
+	 * @param depth	the remaining depth to be searched
+	 * @param alpha	the lower bound of the search window
+	 * @param beta	the upper bound of the search window
+	 * @param ply	the distance from the root
+	 * @param previousMove	the key of the move leading to the contents, or zero if none is known
+	 * @param reversible	the number of reversible plies leading to the contents, including those played in the game before the root
+	 * @return	the value of the contents, relative to the player to move
+	 * @throws IOException
+	 */
+	public int search(MinimaxNodeContents contents, long hash, int depth, int alpha, int beta, int ply, int previousMove, int reversible) throws IOException
+	{
+		prepareOrderingTables(contents.getBoard().getNodes().size());
+		
+		/** Repetitions are only detected from the contents on, as the path leading to them is not known **/
+		rootOffset = 0;
+		pathStart = ply;
+		quietPlyLimit = contents.getGame().getQuietPlyLimit();
+		
+		if(ply < MAX_PLY)
+		{
+			reversiblePlies[ply] = reversible;
+		}
+		
+		return negamax(contents, hash, depth, alpha, beta, ply, previousMove, 0);
+	}
+	
+	/**
+	 * Returns the value of the given child of the given root, searched as by this search from the root
+	 * Lets other searches split the root moves while repetitions of positions played before the root are still detected
+	 * 
+	 * @param root	the node at which the search begins
+	 * @param child	the child of the root to be searched
+	 * @param depth	the depth searched from the root
+	 * @param alpha	the lower bound of the search window of the root
+	 * @param beta	the upper bound of the search window of the root
+	 * @return	the value of the child, relative to the player to move at the root
+	 * @throws IOException
+	 */
+	public int searchRootChild(MinimaxNode root, MinimaxNode child, int depth, int alpha, int beta) throws IOException
+	{
+		long hash = ZobristHash.getHash(root.getGame());
+		
+		preparePath(root.getGame(), hash);
+		prepareOrderingTables(root.getBoard().getNodes().size());
+		updateReversiblePlies(1, child.getMove());
+		
+		return -negamax(child.getContents(), ZobristHash.getNextHash(hash, child.getMove()), depth - 1, -beta, -alpha, 1, child.getMove().getKey(), 0);
+	}
+	
+	/**
+	 * Returns the negamax value of the given contents
+	 * 
+	 * @param contents	the contents to be evaluated
+	 * @param hash	the hash of the contents
+	 * @param depth	the remaining depth to be searched
+	 * @param alpha	the lower bound of the search window
+	 * @param beta	the upper bound of the search window
+	 * @param ply	the distance from the root
+	 * @param previousMove	the key of the move leading to the contents, or zero after a null move
+	 * @param extended	the extension units granted along the path to the contents
+	 * @return	the value of the contents, relative to the player to move
+	 * @throws IOException
+	 */
+	private int negamax(MinimaxNodeContents contents, long hash, int depth, int alpha, int beta, int ply, int previousMove, int extended) throws IOException
+	{
+		nodeCount ++;
+		
+		pollDeadline();
+		
+		int originalAlpha = alpha;
+		
+		int hashMove = 0;
+		
+		/** Repetition and quiet move draws, against the search path and the game before the root **/
+		if(ply > 0 && isDraw(hash, ply))
+		{
+			return 0;
+		}
+		
+		/** Transposition table cutoff **/
+		long entry = transpositionTable.get(hash);
+		
+		if(entry != 0)
+		{
+			hashMove = TranspositionEntry.getBestMove(entry);
+			
+			if(TranspositionEntry.getDepth(entry) >= depth)
+			{
+				int value = fromTableValue(TranspositionEntry.getValue(entry), ply);
+				Bound bound = TranspositionEntry.getBound(entry);
+				
+				if(bound == Bound.EXACT || (bound == Bound.LOWER && value >= beta) || (bound == Bound.UPPER && value <= alpha))
+				{
+					return value;
+				}
+			}
+		}
+		
+		/** Endgame database cutoff **/
+		if(endgameDatabase != null)
+		{
+			int code = endgameDatabase.probe(contents.getGame());
+			
+			if(code != EndgameDatabase.UNKNOWN && ply < MAX_PLY && isBeforeQuietPlyLimit(code, reversiblePlies[ply], quietPlyLimit))
+			{
+				return getDatabaseValue(code, ply);
+			}
+		}
+		
+		/** Leaf node case testing **/
+		if(depth <= 0)
+		{
+			return quiescenceSearch ? quiescence(contents, alpha, beta, ply) : evaluate(contents.getGame());
+		}
+		
+		/** Null move pruning, never twice in a row **/
+		if(previousMove != 0 && canPassTurn(contents, depth, alpha, beta))
+		{
+			int value = searchNullMove(contents, hash, depth, beta, ply, extended);
+			
+			if(value >= beta)
+			{
+				return Math.min(value, WIN_THRESHOLD - 1);
+			}
+		}
+		
+		ArrayList<Move> moves = contents.getNextMoves();
+		
+		if(moves.isEmpty())
+		{
+			return ply - WIN_VALUE;
+		}
+		
+		/** Enhanced transposition cutoff, a child whose stored bound already refutes the parent **/
+		if(enhancedTranspositionCutoffs && depth >= TRANSPOSITION_CUTOFF_MIN_DEPTH)
+		{
+			for(Move move : moves)
+			{
+				int value = getTranspositionCutoff(ZobristHash.getNextHash(hash, move), depth - 1, beta, ply + 1);
+				
+				if(value >= beta)
+				{
+					transpositionTable.put(hash, depth, toTableValue(value, ply), Bound.LOWER, move.getKey());
+					
+					return value;
+				}
+			}
+		}
+		
+		/** Razoring and futility pruning near the horizon, unless captures are pending **/
+		boolean futile = false;
+		int futilityValue = -INFINITY;
+		
+		if(depth <= RAZORING_DEPTH && beta - alpha <= NULL_WINDOW && Math.abs(alpha) < WIN_THRESHOLD && !hasCapture(moves))
+		{
+			int staticValue = evaluate(contents.getGame());
+			
+			if(razoring && depth == RAZORING_DEPTH && staticValue + getRazoringMargin(contents.getBoard()) <= alpha)
+			{
+				int value = quiescenceSearch ? quiescence(contents, alpha, alpha + NULL_WINDOW, ply) : staticValue;
+				
+				if(value <= alpha)
+				{
+					return value;
+				}
+			}
+			
+			futilityValue = staticValue + getFutilityMargin(contents.getBoard());
+			futile = futilityPruning && depth == FUTILITY_DEPTH && futilityValue <= alpha;
+		}
+		
+		/** Internal iterative deepening, a reduced search of principal variation and expected cut nodes storing a hash move to be searched first **/
+		if(internalIterativeDeepening && hashMove == 0 && depth >= INTERNAL_DEEPENING_MIN_DEPTH && (beta - alpha > NULL_WINDOW || evaluate(contents.getGame()) >= beta))
+		{
+			negamax(contents, hash, depth - INTERNAL_DEEPENING_REDUCTION, alpha, beta, ply, previousMove, extended);
+			
+			entry = transpositionTable.get(hash);
+			
+			/** A search failing low only bounds every move alike, and its best move is no better than the others **/
+			if(entry != 0 && TranspositionEntry.getBound(entry) != Bound.UPPER)
+			{
+				hashMove = TranspositionEntry.getBestMove(entry);
+			}
+		}
+		
+		int[] scores = getOrderingScores(moves, hashMove, ply, previousMove);
+		
+		int best = -INFINITY;
+		int bestMove = 0;
+		
+		for(int i = 0; i < moves.size(); i ++)
+		{
+			selectMove(moves, scores, i);
+			
+			Move move = moves.get(i);
+			
+			if(futile && !isTactical(move))
+			{
+				best = Math.max(best, futilityValue);
+				
+				continue;
+			}
+			
+			MinimaxNodeContents nextContents = contents.getNextContents(move);
+			long nextHash = ZobristHash.getNextHash(hash, move);
+			
+			/** Fractional extensions, whole plies being added once the units granted along the path add up to them **/
+			int nextExtended = Math.min(extended + getExtension(move, moves.size()), extensionBudget);
+			int nextDepth = depth - 1 + nextExtended/ONE_PLY - extended/ONE_PLY;
+			
+			int reduction = getReduction(move, hashMove, depth, i, ply);
+			
+			updateReversiblePlies(ply + 1, move);
+			
+			int value;
+			
+			if(reduction > 0)
+			{
+				/** Late move reduction, re-searched at full depth only if the move beats alpha **/
+				value = -negamax(nextContents, nextHash, nextDepth - reduction, -alpha - NULL_WINDOW, -alpha, ply + 1, move.getKey(), nextExtended);
+				
+				if(value > alpha)
+				{
+					value = searchChild(nextContents, nextHash, nextDepth, alpha, beta, ply + 1, false, move.getKey(), nextExtended);
+				}
+			}
+			else
+			{
+				value = searchChild(nextContents, nextHash, nextDepth, alpha, beta, ply + 1, i == 0, move.getKey(), nextExtended);
+			}
+			
+			if(value > best)
+			{
+				best = value;
+				bestMove = move.getKey();
+			}
+			
+			alpha = Math.max(alpha, value);
+			
+			if(alpha >= beta)
+			{
+				if(!isTactical(move))
+				{
+					updateOrderingTables(move.getKey(), depth, ply, previousMove);
+				}
+				
+				break;
+			}
+		}
+		
+		/** Transposition table insertion **/
+		Bound bound = best <= originalAlpha ? Bound.UPPER : (best >= beta ? Bound.LOWER : Bound.EXACT);
+		
+		transpositionTable.put(hash, depth, toTableValue(best, ply), bound, bestMove);
+		
+		return best;
+	}
+	
+	/**
+	 * Returns the value the child with the given hash is known to guarantee its parent, from a bound stored in the transposition table
+	 * Only entries searched at least as deep as the child would be, and whose value bounds the child from above, give the parent a lower bound
+	 * 
+	 * @param hash	the hash of the child, derived from that of the parent without making the move
+	 * @param depth	the remaining depth the child would be searched to
+	 * @param beta	the upper bound of the search window of the parent
+	 * @param ply	the distance of the child from the root
+	 * @return	the lower bound on the value of the parent, relative to the player to move at the parent, or minus infinity if none is known
+	 */
+	private int getTranspositionCutoff(long hash, int depth, int beta, int ply)
+	{
+		long entry = transpositionTable.get(hash);
+		
+		if(entry == 0 || TranspositionEntry.getDepth(entry) < depth || TranspositionEntry.getBound(entry) == Bound.LOWER)
+		{
+			return -INFINITY;
+		}
+		
+		return -fromTableValue(TranspositionEntry.getValue(entry), ply);
+	}
+	
+	/**
+	 * Returns the value of the given contents once all pending captures and promotions are resolved
+	 * The player to move may stand pat on the static value, unless a checkers jump is forced
+	 * 
+	 * @param contents	the contents to be evaluated
+	 * @param alpha	the lower bound of the search window
+	 * @param beta	the upper bound of the search window
+	 * @param ply	the distance from the root
+	 * @return	the value of the contents, relative to the player to move
+	 * @throws IOException
+	 */
+	private int quiescence(MinimaxNodeContents contents, int alpha, int beta, int ply) throws IOException
+	{
+		quiescenceNodeCount ++;
+		
+		pollDeadline();
+		
+		ArrayList<Move> moves = contents.getNextMoves();
+		
+		if(moves.isEmpty())
+		{
+			return ply - WIN_VALUE;
+		}
+		
+		boolean forced = contents.getBoard() instanceof CheckersBoard && !moves.get(0).getJumped().isEmpty();
+		
+		int best = -INFINITY;
+		
+		if(!forced)
+		{
+			best = evaluate(contents.getGame());
+			
+			if(best >= beta)
+			{
+				return best;
+			}
+			
+			alpha = Math.max(alpha, best);
+		}
+		
+		for(Move move : moves)
+		{
+			if(!forced && !isTactical(move))
+			{
+				continue;
+			}
+			
+			int value = -quiescence(contents.getNextContents(move), -beta, -alpha, ply + 1);
+			
+			best = Math.max(best, value);
+			alpha = Math.max(alpha, value);
+			
+			if(alpha >= beta)
+			{
+				break;
+			}
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * Fills the path hashes with the positions of the given root game since its last irreversible move, followed by the root itself
+	 * The game history is only used if it ends with the root, as roots reached by hypothetical moves have no history of their own
+	 * 
+	 * @param game	the game at the root
+	 * @param hash	the hash of the root
+	 */
+	private void preparePath(Game game, long hash)
+	{
+		ArrayList<Long> history = game.getPositionHistory();
+		
+		rootOffset = getReversiblePlies(game, hash);
+		pathStart = -rootOffset;
+		quietPlyLimit = game.getQuietPlyLimit();
+		
+		if(pathHashes.length < rootOffset + MAX_PLY)
+		{
+			pathHashes = new long[rootOffset + MAX_PLY];
+		}
+		
+		for(int i = 0; i < rootOffset; i ++)
+		{
+			pathHashes[i] = history.get(i);
+		}
+		
+		pathHashes[rootOffset] = hash;
+		reversiblePlies[0] = rootOffset;
+	}
+	
+	/**
+	 * Returns the number of reversible plies played in the given game before its current position, known only if its history ends with that position
+	 * 
+	 * @param game	the game
+	 * @param hash	the hash of the current position of the game
+	 * @return	the number of reversible plies, zero if the history of the game is not known
+	 */
+	public static int getReversiblePlies(Game game, long hash)
+	{
+		ArrayList<Long> history = game.getPositionHistory();
+		
+		return !history.isEmpty() && history.get(history.size() - 1) == hash ? history.size() - 1 : 0;
+	}
+	
+	/**
+	 * Records the number of reversible plies leading to the given ply, reached by the given move from the ply before
+	 * 
+	 * @param ply	the distance from the root
+	 * @param move	the move leading to the ply, or null after a null move or if the path before the ply is unknown
+	 */
+	private void updateReversiblePlies(int ply, Move move)
+	{
+		if(ply < MAX_PLY)
+		{
+			reversiblePlies[ply] = move == null || move.isIrreversible() ? 0 : reversiblePlies[ply - 1] + 1;
+		}
+	}
+	
+	/**
+	 * Records the given position on the search path, and returns whether or not it is drawn by the quiet move rule or by repeating an earlier position
+	 * A single repetition is scored as a draw, as the player repeating could repeat again
+	 * 
+	 * @param hash	the hash of the position
+	 * @param ply	the distance from the root
+	 * @return	a boolean describing whether or not the position is drawn
+	 */
+	private boolean isDraw(long hash, int ply)
+	{
+		if(ply >= MAX_PLY)
+		{
+			return false;
+		}
+		
+		pathHashes[rootOffset + ply] = hash;
+		
+		if(quietPlyLimit > 0 && reversiblePlies[ply] >= quietPlyLimit)
+		{
+			return true;
+		}
+		
+		/** Positions with the same player to move, at least two moves of each player back **/
+		for(int i = ply - 4; i >= Math.max(ply - reversiblePlies[ply], pathStart); i -= 2)
+		{
+			if(pathHashes[rootOffset + i] == hash)
+			{
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Aborts the search in progress if its deadline has passed or it has been stopped, reading the clock only every few nodes
+	 */
+	private void pollDeadline()
+	{
+		if(++ pollCount >= DEADLINE_POLL_INTERVAL)
+		{
+			pollCount = 0;
+			
+			if(stopped || System.currentTimeMillis() >= deadline)
+			{
+				throw new SearchTimeoutException();
+			}
+		}
+	}
+	
+	/**
+	 * Returns whether or not any of the given moves captures
+	 * 
+	 * @param moves	the moves to be tested
+	 * @return	a boolean describing whether or not a capture is pending
+	 */
+	private static boolean hasCapture(ArrayList<Move> moves)
+	{
+		for(Move move : moves)
+		{
+			if(!move.getJumped().isEmpty())
+			{
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Returns the margin by which a frontier node must fall short of alpha for its quiet moves to be pruned
+	 * A quiet move can at most win back about one soldier, or a minor piece in chess
+	 * 
+	 * @param board	the board being searched
+	 * @return	the futility margin
+	 */
+	private static int getFutilityMargin(Board board)
+	{
+		return (board instanceof ChessBoard ? Knight.KNIGHT_WORTH : Soldier.SOLDIER_WORTH)*VALUE_SCALE;
+	}
+	
+	/**
+	 * Returns the margin by which a pre-frontier node must fall short of alpha to be razored
+	 * Two quiet plies can at most win back about one king, or a rook in chess
+	 * 
+	 * @param board	the board being searched
+	 * @return	the razoring margin
+	 */
+	private static int getRazoringMargin(Board board)
+	{
+		return (board instanceof ChessBoard ? Rook.ROOK_WORTH : game.piece.checkersPieces.King.KING_WORTH)*VALUE_SCALE;
+	}
+	
+	/**
+	 * Returns whether or not a null move should be tried at the given contents
+	 * Null moves are only tried on chess boards, as checkers has forced captures and frequent zugzwang
+	 * 
+	 * @param contents	the contents being searched
+	 * @param depth	the remaining depth
+	 * @param alpha	the lower bound of the search window
+	 * @param beta	the upper bound of the search window
+	 * @return	a boolean describing whether or not to try a null move
+	 */
+	private boolean canPassTurn(MinimaxNodeContents contents, int depth, int alpha, int beta)
+	{
+		if(!nullMovePruning || !(contents.getBoard() instanceof ChessBoard) || depth < NULL_MOVE_MIN_DEPTH)
+		{
+			return false;
+		}
+		
+		if(beta - alpha > NULL_WINDOW || beta >= WIN_THRESHOLD || evaluate(contents.getGame()) < beta)
+		{
+			return false;
+		}
+		
+		return !((ChessBoard) contents.getBoard()).isInCheck(contents.getGame().getTurn());
+	}
+	
+	/**
+	 * Returns the value of passing the turn at the given contents, relative to the player passing
+	 * The turn is flipped on the game itself rather than on a copy, and restored afterwards
+	 * A fail high with few non-pawn pieces is verified by a reduced search without a null move
+	 * 
+	 * @param contents	the contents being searched
+	 * @param hash	the hash of the contents
+	 * @param depth	the remaining depth
+	 * @param beta	the upper bound of the search window
+	 * @param ply	the distance from the root
+	 * @param extended	the extension units granted along the path to the contents
+	 * @return	the value of the null move, or a value below beta if it did not hold
+	 * @throws IOException
+	 */
+	private int searchNullMove(MinimaxNodeContents contents, long hash, int depth, int beta, int ply, int extended) throws IOException
+	{
+		Game game = contents.getGame();
+		Loyalty turn = game.getTurn();
+		
+		int reduction = NULL_MOVE_REDUCTION + (depth > NULL_MOVE_DEEP_DEPTH ? 1 : 0);
+		
+		int value;
+		
+		game.setTurn(turn.getOther());
+		updateReversiblePlies(ply + 1, null);
+		
+		try
+		{
+			value = -negamax(contents, ZobristHash.getPassedHash(hash), depth - 1 - reduction, -beta, -beta + NULL_WINDOW, ply + 1, 0, extended);
+		}
+		finally
+		{
+			game.setTurn(turn);
+		}
+		
+		if(value >= beta && getNonPawnPieceCount(game, turn) <= ZUGZWANG_PIECES)
+		{
+			value = negamax(contents, hash, depth - reduction, beta - NULL_WINDOW, beta, ply, 0, extended);
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Returns the number of pieces of the given loyalty other than pawns and the king
+	 * 
+	 * @param game	the game whose pieces are counted
+	 * @param loyalty	the loyalty of the pieces counted
+	 * @return	the number of non-pawn pieces
+	 */
+	private static int getNonPawnPieceCount(Game game, Loyalty loyalty)
+	{
+		int count = 0;
+		
+		for(Node node : game.getBoard().getNodes())
+		{
+			Piece piece = node.getPiece();
+			
+			if(piece != null && piece.getLoyalty() == loyalty && !(piece instanceof Pawn) && !(piece instanceof King))
+			{
+				count ++;
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Returns the depth the given move is reduced by
+	 * Only quiet moves after the hash move, the captures and the killer moves are reduced
+	 * 
+	 * @param move	the move to be searched
+	 * @param hashMove	the key of the best move stored in the transposition table
+	 * @param depth	the remaining depth of the parent
+	 * @param index	the index of the move in the search order
+	 * @param ply	the distance of the parent from the root
+	 * @return	the reduction of the move
+	 */
+	private int getReduction(Move move, int hashMove, int depth, int index, int ply)
+	{
+		if(!lateMoveReductions || depth < REDUCTION_MIN_DEPTH || index < REDUCTION_MIN_INDEX || isTactical(move))
+		{
+			return 0;
+		}
+		
+		int key = move.getKey();
+		
+		if(key == hashMove)
+		{
+			return 0;
+		}
+		
+		if(ply < MAX_PLY)
+		{
+			for(int slot = 0; slot < KILLER_SLOTS; slot ++)
+			{
+				if(key == killerMoves[ply][slot])
+				{
+					return 0;
+				}
+			}
+		}
+		
+		return reductions[Math.min(depth, MAX_DEPTH)][Math.min(index, REDUCTION_TABLE_INDICES - 1)];
+	}
+	
+	/**
+	 * Fills the reduction table with base plus the product of the logarithms of depth and move index over divisor
+	 * Reductions never leave less than one ply to be searched
+	 * 
+	 * @param base	the constant term of the formula
+	 * @param divisor	the divisor of the logarithmic term
+	 */
+	public void setReductionParameters(double base, double divisor)
+	{
+		reductions = new int[MAX_DEPTH + 1][REDUCTION_TABLE_INDICES];
+		
+		for(int depth = 1; depth <= MAX_DEPTH; depth ++)
+		{
+			for(int index = 1; index < REDUCTION_TABLE_INDICES; index ++)
+			{
+				int reduction = (int) (base + Math.log(depth)*Math.log(index)/divisor);
+				
+				reductions[depth][index] = Math.max(0, Math.min(reduction, depth - 2));
+			}
+		}
+	}
+	
+	/**
+	 * Sets a single entry of the reduction table
+	 * 
+	 * @param depth	the remaining depth of the parent
+	 * @param index	the index of the move in the search order
+	 * @param reduction	the depth moves are reduced by
+	 */
+	public void setReduction(int depth, int index, int reduction)
+	{
+		reductions[depth][index] = Math.max(0, Math.min(reduction, depth - 2));
+	}
+	
+	/**
+	 * Returns the extension units granted to the given move, the largest of those it qualifies for
+	 * 
+	 * @param move	the move to be extended
+	 * @param moveCount	the number of legal moves of the position the move is made from
+	 * @return	the extension units of the move, zero if it is not extended
+	 */
+	private int getExtension(Move move, int moveCount)
+	{
+		if(!extensions)
+		{
+			return 0;
+		}
+		
+		int extension = 0;
+		
+		if(moveCount == 1)
+		{
+			extension = SINGLE_REPLY_EXTENSION;
+		}
+		
+		if(move.isPromotion() && (!(move instanceof ChessMove) || ((ChessMove) move).getPromotionType() == Queen.class))
+		{
+			extension = Math.max(extension, PROMOTION_EXTENSION);
+		}
+		
+		if(!move.getJumped().isEmpty())
+		{
+			extension = Math.max(extension, JUMP_EXTENSION);
+		}
+		
+		return extension;
+	}
+	
+	/**
+	 * Returns whether or not the given move is a capture or a promotion
+	 * 
+	 * @param move	the move to be tested
+	 * @return	a boolean describing whether or not the move is tactical
+	 */
+	private static boolean isTactical(Move move)
+	{
+		return !move.getJumped().isEmpty() || move.isPromotion();
+	}
+	
+	/**
+	 * Returns the ordering scores of the given moves
+	 * The hash move comes first, then captures by most valuable victim, then quiet moves by history
+	 * Killer moves and the countermove break ties between quiet moves, which measured better on checkers than ranking them above all history
+	 * 
+	 * @param moves	the moves to be scored
+	 * @param hashMove	the key of the best move stored in the transposition table
+	 * @param ply	the distance from the root
+	 * @param previousMove	the key of the move leading to the position
+	 * @return	the array of scores, parallel to the moves
+	 */
+	private int[] getOrderingScores(ArrayList<Move> moves, int hashMove, int ply, int previousMove)
+	{
+		int[] scores = new int[moves.size()];
+		
+		int countermove = previousMove == 0 ? 0 : countermoves[getTableIndex(previousMove)];
+		
+		for(int i = 0; i < moves.size(); i ++)
+		{
+			Move move = moves.get(i);
+			int key = move.getKey();
+			
+			if(key == hashMove)
+			{
+				scores[i] = HASH_MOVE_SCORE;
+			}
+			else if(isTactical(move))
+			{
+				double victimWorth = move.isPromotion() ? 1 : 0;
+				
+				for(Node jumped : move.getJumped())
+				{
+					victimWorth += jumped.getPiece().getWorth();
+				}
+				
+				double attackerWorth = Math.min(move.getNodes().get(0).getPiece().getWorth(), 100);
+				
+				scores[i] = CAPTURE_SCORE + (int) (1000*victimWorth - attackerWorth);
+			}
+			else
+			{
+				int tieBreak = key == countermove ? 1 : 0;
+				
+				if(ply < MAX_PLY)
+				{
+					for(int slot = KILLER_SLOTS - 1; slot >= 0; slot --)
+					{
+						if(key == killerMoves[ply][slot])
+						{
+							tieBreak = KILLER_SLOTS + 1 - slot;
+						}
+					}
+				}
+				
+				scores[i] = HISTORY_SCALE*history[getTableIndex(key)] + tieBreak;
+			}
+		}
+		
+		return scores;
+	}
+	
+	/**
+	 * Swaps the highest scored of the remaining moves into the given index
+	 * Selecting lazily avoids sorting moves which are never searched because of a cutoff
+	 * 
+	 * @param moves	the moves being searched
+	 * @param scores	the ordering scores of the moves
+	 * @param index	the index of the next move to be searched
+	 */
+	private static void selectMove(ArrayList<Move> moves, int[] scores, int index)
+	{
+		int bestIndex = index;
+		
+		for(int i = index + 1; i < scores.length; i ++)
+		{
+			if(scores[i] > scores[bestIndex])
+			{
+				bestIndex = i;
+			}
+		}
+		
+		if(bestIndex != index)
+		{
+			int score = scores[index];
+			scores[index] = scores[bestIndex];
+			scores[bestIndex] = score;
+			
+			moves.set(index, moves.set(bestIndex, moves.get(index)));
+		}
+	}
+	
+	/**
+	 * Records a quiet move which caused a cutoff in the killer, history and countermove tables
+	 * 
+	 * @param move	the key of the move causing the cutoff
+	 * @param depth	the remaining depth of the cutoff
+	 * @param ply	the distance from the root
+	 * @param previousMove	the key of the move leading to the position
+	 */
+	private void updateOrderingTables(int move, int depth, int ply, int previousMove)
+	{
+		if(ply < MAX_PLY && killerMoves[ply][0] != move)
+		{
+			for(int slot = KILLER_SLOTS - 1; slot > 0; slot --)
+			{
+				killerMoves[ply][slot] = killerMoves[ply][slot - 1];
+			}
+			
+			killerMoves[ply][0] = move;
+		}
+		
+		int index = getTableIndex(move);
+		
+		history[index] += depth*depth;
+		
+		if(history[index] > HISTORY_LIMIT)
+		{
+			ageHistory();
+		}
+		
+		if(previousMove != 0)
+		{
+			countermoves[getTableIndex(previousMove)] = move;
+		}
+	}
+	
+	/**
+	 * Returns the index of the given move in the history and countermove tables
+	 * Every pair of start and end has its own entry unless the board is too large for the tables
+	 * 
+	 * @param move	the key of the move
+	 * @return	the index of the move
+	 */
+	private int getTableIndex(int move)
+	{
+		return (Move.getStartIndex(move)*tableNodeCount + Move.getEndIndex(move)) & tableMask;
+	}
+	
+	/**
+	 * Sizes the history and countermove tables for a board with the given number of nodes, clearing them if resized
+	 * The tables hold a power of two entries, at least one per pair of nodes but no more than the maximum size, as every search thread has its own
+	 * 
+	 * @param nodeCount	the number of nodes of the board
+	 */
+	private void prepareOrderingTables(int nodeCount)
+	{
+		if(history == null || tableNodeCount != nodeCount)
+		{
+			int pairs = nodeCount*nodeCount;
+			int size = Math.min(Integer.highestOneBit(Math.max(pairs, 1)), MAX_ORDERING_TABLE_SIZE);
+			
+			if(size < pairs && size < MAX_ORDERING_TABLE_SIZE)
+			{
+				size <<= 1;
+			}
+			
+			tableNodeCount = nodeCount;
+			tableMask = size - 1;
+			history = new int[size];
+			countermoves = new int[size];
+		}
+	}
+	
+	/**
+	 * Removes all killer moves
+	 */
+	private void clearKillerMoves()
+	{
+		for(int[] plyKillers : killerMoves)
+		{
+			for(int slot = 0; slot < KILLER_SLOTS; slot ++)
+			{
+				plyKillers[slot] = 0;
+			}
+		}
+	}
+	
+	/**
+	 * Halves every history value, so that recent cutoffs outweigh old ones
+	 */
+	private void ageHistory()
+	{
+		if(history == null)
+		{
+			return;
+		}
+		
+		for(int i = 0; i < history.length; i ++)
+		{
+			history[i] >>= 1;
+		}
+	}
+	
+	/**
+	 * Sorts the given root children by descending value, with the stored best move first
+	 * 
+	 * @param children	the children to be sorted
+	 * @param hash	the hash of the root
+	 */
+	private void sortChildren(ArrayList<MinimaxSuperNode> children, long hash)
+	{
+		Collections.sort(children, new Comparator<MinimaxSuperNode>()
+		{
+			@Override
+			public int compare(MinimaxSuperNode first, MinimaxSuperNode second)
+			{
+				return Double.compare(second.getValue(), first.getValue());
+			}
+		});
+		
+		int bestMove = TranspositionEntry.getBestMove(transpositionTable.get(hash));
+		
+		if(bestMove == 0)
+		{
+			return;
+		}
+		
+		for(int i = 0; i < children.size(); i ++)
+		{
+			if(((MinimaxNode) children.get(i)).getMove().getKey() == bestMove)
+			{
+				children.add(0, children.remove(i));
+				
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the search value of a position valued by the endgame database
+	 * Known wins lose a point per ply of their distance from the root, so that the winning player takes the shortest win and the losing player holds out the longest
+	 * 
+	 * @param code	the code of the position in the database
+	 * @param ply	the distance of the position from the root
+	 * @return	the value of the position, relative to the player to move
+	 */
+	private static int getDatabaseValue(int code, int ply)
+	{
+		if(code == 0)
+		{
+			return 0;
+		}
+		
+		int value = DATABASE_WIN_VALUE - ply - EndgameDatabase.getDistance(code);
+		
+		return code > 0 ? value : -value;
+	}
+	
+	/**
+	 * Returns whether or not the given database result holds under the quiet move rule
+	 * The database ignores the rule, so a win or loss whose game ends only once the limit is reached may really be a draw, and is not trusted
+	 * 
+	 * @param code	the code of the position in the database
+	 * @param reversible	the number of reversible plies leading to the position
+	 * @param quietPlyLimit	the number of reversible plies after which the game is drawn, or zero if it never is
+	 * @return	a boolean describing whether or not the result holds
+	 */
+	private static boolean isBeforeQuietPlyLimit(int code, int reversible, int quietPlyLimit)
+	{
+		return code == 0 || quietPlyLimit <= 0 || reversible + EndgameDatabase.getDistance(code) < quietPlyLimit;
+	}
+	
+	/**
+	 * Returns whether or not the given value is that of a position known to be won or lost
+	 * 
+	 * @param value	the value to be tested
+	 * @return	a boolean describing whether or not the value is a win or a loss
+	 */
+	public static boolean isWinOrLoss(double value)
+	{
+		return Math.abs(value) >= WIN_THRESHOLD;
+	}
+	
+	/**
+	 * Returns the given value as stored in the transposition table
+	 * Wins and losses are stored by their distance from the position rather than from the root, as the position may be reached again at another ply
+	 * 
+	 * @param value	the value of the position, relative to the root
+	 * @param ply	the distance of the position from the root
+	 * @return	the value to be stored
+	 */
+	static int toTableValue(int value, int ply)
+	{
+		if(value >= WIN_THRESHOLD)
+		{
+			return value + ply;
+		}
+		
+		if(value <= -WIN_THRESHOLD)
+		{
+			return value - ply;
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Returns the given value read from the transposition table, relative to the root
+	 * 
+	 * @param value	the value stored
+	 * @param ply	the distance of the position from the root
+	 * @return	the value of the position
+	 */
+	static int fromTableValue(int value, int ply)
+	{
+		if(value >= WIN_THRESHOLD)
+		{
+			return value - ply;
+		}
+		
+		if(value <= -WIN_THRESHOLD)
+		{
+			return value + ply;
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Returns the material balance of the given game in scaled units, relative to the player to move
+	 * 
+	 * @param game	the game to be evaluated
+	 * @return	the value of the game
+	 */
+	public static int evaluate(Game game)
+	{
+		Loyalty turn = game.getTurn();
+		
+		double value = 0;
+		
+		for(Node node : game.getBoard().getNodes())
+		{
+			Piece piece = node.getPiece();
+			
+			/* Pieces worth a win, like the chess king, are never captured and are not counted */
+			if(piece == null || piece.getWorth() >= WIN_VALUE)
+			{
+				continue;
+			}
+			
+			if(piece.getLoyalty() == turn)
+			{
+				value += piece.getWorth();
+			}
+			else
+			{
+				value -= piece.getWorth();
+			}
+		}
+		
+		return (int) Math.round(value*VALUE_SCALE);
+	}
+	
+	/**
+	 * @return	the number of nodes visited by this search
+	 */
+	public long getNodeCount()
+	{
+		return nodeCount;
+	}
+	
+	/**
+	 * @return	the number of quiescence nodes visited by this search
+	 */
+	public long getQuiescenceNodeCount()
+	{
+		return quiescenceNodeCount;
+	}
+	
+	/**
+	 * Sets the index of this search among the threads of a parallel search
+	 * Helper searches leave the table age to the main search, vary their root move order, and start one ply deeper when their index is odd
+	 * 
+	 * @param helperIndex	the index of this search, zero for the main thread
+	 */
+	public void setHelperIndex(int helperIndex)
+	{
+		this.helperIndex = helperIndex;
+	}
+	
+	/**
+	 * Asks the search in progress, possibly running on another thread, to return as if its deadline had passed
+	 * Searches started afterwards return immediately until the stop is cleared
+	 */
+	public void stop()
+	{
+		stopped = true;
+	}
+	
+	/**
+	 * Clears a previous stop, allowing searches to run again
+	 */
+	public void clearStop()
+	{
+		stopped = false;
+	}
+	
+	/**
+	 * @return	whether or not searches have been asked to stop
+	 */
+	public boolean isStopped()
+	{
+		return stopped;
+	}
+	
+	/**
+	 * @return	the depth of the last iteration completed by the last iterative deepening search
+	 */
+	public int getCompletedDepth()
+	{
+		return completedDepth;
+	}
+	
+	/**
+	 * Resets the node counts of this search
+	 */
+	public void resetNodeCount()
+	{
+		nodeCount = 0;
+		quiescenceNodeCount = 0;
+	}
+	
+	/**
+	 * @param quiescenceSearch	whether or not captures are resolved at the horizon
+	 */
+	public void setQuiescenceSearch(boolean quiescenceSearch)
+	{
+		this.quiescenceSearch = quiescenceSearch;
+	}
+	
+	/**
+	 * @param nullMovePruning	whether or not null move pruning is used on chess boards
+	 */
+	public void setNullMovePruning(boolean nullMovePruning)
+	{
+		this.nullMovePruning = nullMovePruning;
+	}
+	
+	/**
+	 * @param futilityPruning	whether or not quiet moves are pruned at frontier nodes far below alpha
+	 */
+	public void setFutilityPruning(boolean futilityPruning)
+	{
+		this.futilityPruning = futilityPruning;
+	}
+	
+	/**
+	 * @param razoring	whether or not pre-frontier nodes far below alpha are resolved by quiescence search
+	 */
+	public void setRazoring(boolean razoring)
+	{
+		this.razoring = razoring;
+	}
+	
+	/**
+	 * @param lateMoveReductions	whether or not late quiet moves are searched to a reduced depth
+	 */
+	public void setLateMoveReductions(boolean lateMoveReductions)
+	{
+		this.lateMoveReductions = lateMoveReductions;
+	}
+	
+	/**
+	 * @param enhancedTranspositionCutoffs	whether or not the children of a node are probed in the transposition table before any is searched
+	 */
+	public void setEnhancedTranspositionCutoffs(boolean enhancedTranspositionCutoffs)
+	{
+		this.enhancedTranspositionCutoffs = enhancedTranspositionCutoffs;
+	}
+	
+	/**
+	 * @param internalIterativeDeepening	whether or not nodes without a hash move search for one at a reduced depth
+	 */
+	public void setInternalIterativeDeepening(boolean internalIterativeDeepening)
+	{
+		this.internalIterativeDeepening = internalIterativeDeepening;
+	}
+	
+	/**
+	 * @param principalVariationSearch	whether or not moves after the first are searched with null windows
+	 */
+	public void setPrincipalVariationSearch(boolean principalVariationSearch)
+	{
+		this.principalVariationSearch = principalVariationSearch;
+	}
+	
+	/**
+	 * @param aspirationWindows	whether or not iterations are searched within aspiration windows
+	 */
+	public void setAspirationWindows(boolean aspirationWindows)
+	{
+		this.aspirationWindows = aspirationWindows;
+	}
+	
+	/**
+	 * @param mtdf	whether or not iterations are searched by mtd(f) rather than within aspiration windows
+	 */
+	public void setMtdf(boolean mtdf)
+	{
+		this.mtdf = mtdf;
+	}
+	
+	/**
+	 * @param extensions	whether or not jumps, promotions and single replies are searched deeper
+	 */
+	public void setExtensions(boolean extensions)
+	{
+		this.extensions = extensions;
+	}
+	
+	/**
+	 * @param plies	the number of plies the extensions along one path may add up to
+	 */
+	public void setExtensionBudget(int plies)
+	{
+		this.extensionBudget = plies*ONE_PLY;
+	}
+	
+	/**
+	 * @param endgameDatabase	the endgame database probed below the root, or null if none is used
+	 */
+	public void setEndgameDatabase(EndgameDatabase endgameDatabase)
+	{
+		this.endgameDatabase = endgameDatabase;
+	}
+	
+	/**
+	 * @return	the endgame database probed below the root, or null if none is used
+	 */
+	public EndgameDatabase getEndgameDatabase()
+	{
+		return endgameDatabase;
+	}
+	
+	/**
+	 * @return	the transposition table of this search
+	 */
+	public TranspositionTable getTranspositionTable()
+	{
+		return transpositionTable;
+	}
+}
@@ -0,0 +1,299 @@
+package game.player.ai;
+
+import game.Game;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A class searching on a background thread while the opponent of an ai is thinking
+ * The opponent's moves are ranked with exact values by a shallow multi pv search, and the position after the best reply is then searched as if it were already the ai's turn
+ * If the opponent plays the expected reply the result is used immediately, otherwise the search is stopped and only its transposition table entries remain
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class Ponderer
+{
+	/** The search shared with the ai, only ever run by one thread at a time **/
+	private NegamaxSearch search;
+	
+	/** The depth of the search of the position after the expected reply **/
+	private int depth;
+	
+	/** The executor running the pondering searches **/
+	private ExecutorService executor;
+	
+	/** The pondering search in progress, or null if none is running **/
+	private Future<MinimaxNode> future;
+	
+	/** The opponent's moves ranked by the shallow search, best first **/
+	private volatile ArrayList<PrincipalVariation> replyLines;
+	
+	/** The hash of the position expected after the opponent's reply **/
+	private volatile long expectedHash;
+	
+	/**
+	 * Parameterized constructor, initializes search and depth to given values
+	 * 
+	 * @param search	the search to be run in the background
+	 * @param depth	the depth of the search of the position after the expected reply
+	 */
+	public Ponderer(NegamaxSearch search, int depth)
+	{
+		this.search = search;
+		this.depth = depth;
+	}
+	
+	/**
+	 * Starts pondering on the given game, in which the opponent is to move
+	 * Any pondering still running is stopped first
+	 * 
+	 * @param game	the game in which the opponent is to move
+	 */
+	public void start(Game game)
+	{
+		cancel();
+		
+		if(executor == null)
+		{
+			executor = Executors.newSingleThreadExecutor(new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable runnable)
+				{
+					Thread thread = new Thread(runnable, "Ponderer");
+					thread.setDaemon(true);
+					
+					return thread;
+				}
+			});
+		}
+		
+		final MinimaxNode root = new MinimaxNode(0, new Game(game), null, null, 0, true);
+		
+		replyLines = null;
+		expectedHash = 0;
+		
+		future = executor.submit(new Callable<MinimaxNode>()
+		{
+			@Override
+			public MinimaxNode call() throws IOException
+			{
+				ArrayList<PrincipalVariation> lines = search.multiPv(root, Integer.MAX_VALUE, Math.max(1, depth/2), Long.MAX_VALUE);
+				
+				if(lines.isEmpty() || search.isStopped())
+				{
+					return null;
+				}
+				
+				MinimaxNode reply = lines.get(0).getNode();
+				
+				replyLines = lines;
+				expectedHash = ZobristHash.getHash(reply.getGame());
+				
+				return search.iterativeDeepening(new MinimaxNode(0, reply.getContents(), null, null, 0, true), depth);
+			}
+		});
+	}
+	
+	/**
+	 * Called once the opponent has moved, stops the pondering if the opponent did not play the expected reply
+	 * Prints the rank of the reply among the opponent's moves as valued exactly by the shallow search
+	 * 
+	 * @param game	the game after the opponent's move
+	 */
+	public void finish(Game game)
+	{
+		if(future == null)
+		{
+			return;
+		}
+		
+		long hash = ZobristHash.getHash(game);
+		
+		ArrayList<PrincipalVariation> lines = replyLines;
+		
+		if(lines != null)
+		{
+			printRank(lines, hash);
+		}
+		
+		if(hash != expectedHash)
+		{
+			cancel();
+		}
+	}
+	
+	/**
+	 * Returns the result of the pondering if it searched the position of the given game to the full depth, stopping it at once
+	 * A pondering stopped before its last iteration leaves only its transposition table entries, so that the position is searched again to the full depth
+	 * 
+	 * @param game	the game in which the ai is to move
+	 * @return	the best child found by the pondering, or null if it did not search this position or did not complete its last iteration
+	 */
+	public MinimaxNode getResult(Game game)
+	{
+		MinimaxNode result = getResult(game, 0);
+		
+		return search.getCompletedDepth() < depth ? null : result;
+	}
+	
+	/**
+	 * Returns the result of the pondering if it searched the position of the given game, letting it run for at most the given time
+	 * A pondering still running once the time has passed is stopped, and the best child of its last completed iteration is returned
+	 * The pondering is stopped and its result discarded if it did not search this position
+	 * 
+	 * @param game	the game in which the ai is to move
+	 * @param time	the time in milliseconds the pondering may still take
+	 * @return	the best child found by the pondering, or null if it did not search this position or completed no iteration
+	 */
+	public MinimaxNode getResult(Game game, long time)
+	{
+		if(future == null)
+		{
+			return null;
+		}
+		
+		if(expectedHash == 0 || ZobristHash.getHash(game) != expectedHash)
+		{
+			cancel();
+			
+			return null;
+		}
+		
+		if(time > 0)
+		{
+			awaitFor(time);
+		}
+		
+		search.stop();
+		
+		MinimaxNode result = await();
+		
+		search.clearStop();
+		
+		return search.getCompletedDepth() == 0 ? null : result;
+	}
+	
+	/**
+	 * Stops the pondering in progress and waits for it to return, keeping its transposition table entries
+	 */
+	public void cancel()
+	{
+		if(future == null)
+		{
+			return;
+		}
+		
+		search.stop();
+		
+		await();
+		
+		search.clearStop();
+	}
+	
+	/**
+	 * Waits for the pondering in progress to return
+	 * 
+	 * @return	the result of the pondering, or null if it failed
+	 */
+	private MinimaxNode await()
+	{
+		try
+		{
+			return future.get();
+		}
+		catch(InterruptedException exception)
+		{
+			Thread.currentThread().interrupt();
+			
+			return null;
+		}
+		catch(ExecutionException exception)
+		{
+			exception.printStackTrace();
+			
+			return null;
+		}
+		finally
+		{
+			future = null;
+		}
+	}
+	
+	/**
+	 * Waits for at most the given time for the pondering in progress to return, leaving it running afterwards
+	 * 
+	 * @param time	the time in milliseconds to wait
+	 */
+	private void awaitFor(long time)
+	{
+		try
+		{
+			future.get(time, TimeUnit.MILLISECONDS);
+		}
+		catch(InterruptedException exception)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch(ExecutionException exception)
+		{
+			/** Reported by the wait following this one **/
+		}
+		catch(TimeoutException exception)
+		{
+			/** The pondering is left running to be stopped by the caller **/
+		}
+	}
+	
+	/**
+	 * Prints the rank of the move leading to the position with the given hash among the given lines
+	 * 
+	 * @param lines	the lines of every move of the opponent's position before the move, best first
+	 * @param hash	the hash of the position after the move
+	 */
+	private static void printRank(ArrayList<PrincipalVariation> lines, long hash)
+	{
+		Double chosenValue = null;
+		
+		for(int i = 0; i < lines.size(); i ++)
+		{
+			PrincipalVariation line = lines.get(i);
+			
+			if(ZobristHash.getHash(line.getNode().getGame()) == hash)
+			{
+				chosenValue = line.getValue();
+				
+				System.out.println("Move chosen: " + i + " with value " + chosenValue);
+			}
+		}
+		
+		if(chosenValue == null)
+		{
+			return;
+		}
+		
+		double count = 0;
+		double greaterCount = 0;
+		
+		for(PrincipalVariation line : lines)
+		{
+			count ++;
+			
+			if(line.getValue() > chosenValue)
+			{
+				greaterCount ++;
+			}
+		}
+		
+		System.out.println("Evaluated Rank: " + (count - greaterCount)/count);
+	}
+}
@@ -0,0 +1,88 @@
+package game.player.ai;
+
+import game.move.Move;
+
+import java.util.ArrayList;
+
+/**
+ * A class representing one line of a multi pv search, a root move with its exact value and the expected continuation
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class PrincipalVariation
+{
+	/** The child of the root the line begins with **/
+	private MinimaxNode node;
+	
+	/** The exact value of the line relative to the player to move at the root **/
+	private double value;
+	
+	/** The moves of the line, beginning with the move to the child **/
+	private ArrayList<Move> moves;
+	
+	/**
+	 * Parameterized constructor, initializes all fields to given values
+	 * 
+	 * @param node	the child of the root the line begins with
+	 * @param value	the exact value of the line
+	 * @param moves	the moves of the line
+	 */
+	public PrincipalVariation(MinimaxNode node, double value, ArrayList<Move> moves)
+	{
+		this.node = node;
+		this.value = value;
+		this.moves = moves;
+	}
+	
+	/**
+	 * Returns a string listing the value and the moves of this line
+	 * 
+	 * @return	the string representation of this line
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder();
+		
+		builder.append(value).append(':');
+		
+		for(Move move : moves)
+		{
+			builder.append(' ').append(move);
+		}
+		
+		return builder.toString();
+	}
+	
+	/**
+	 * @return	the child of the root the line begins with
+	 */
+	public MinimaxNode getNode()
+	{
+		return node;
+	}
+	
+	/**
+	 * @return	the move to the child of the root the line begins with
+	 */
+	public Move getMove()
+	{
+		return node.getMove();
+	}
+	
+	/**
+	 * @return	the exact value of the line
+	 */
+	public double getValue()
+	{
+		return value;
+	}
+	
+	/**
+	 * @return	the moves of the line
+	 */
+	public ArrayList<Move> getMoves()
+	{
+		return moves;
+	}
+}
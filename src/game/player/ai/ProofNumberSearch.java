@@ -0,0 +1,388 @@
+package game.player.ai;
+
+import game.Game;
+import game.move.Move;
+import game.piece.Piece.Loyalty;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * A class proving wins and losses with depth-first proof-number search
+ * Numbers are kept relative to the player to move, the proof number of a node being the disproof number of its best child and its disproof number the sum of the proof numbers of its children
+ * A player without moves has lost, and a position at the depth limit counts as a failure of the player trying to prove a win
+ * All numbers live in a bounded table, so that the memory used does not depend on the size of the proof
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class ProofNumberSearch
+{
+	/**
+	 * An enum representing the proven outcome of a position for the player to move
+	 * 
+	 * @author Benjamin Cohen-Wang
+	 */
+	public static enum Result
+	{
+		WIN,
+		LOSS,
+		UNKNOWN
+	}
+	
+	/** The proof or disproof number of a position that is disproven or proven **/
+	private static final int INFINITY = 1 << 30;
+	
+	/** The maximum number of moves written out in a solution tree **/
+	private static final int SOLUTION_LIMIT = 1000;
+	
+	/** The multiplier mixing the remaining depth into the hash of a position **/
+	private static final long DEPTH_KEY = 0x9E3779B97F4A7C15L;
+	
+	/** The table of proof and disproof numbers **/
+	private ProofNumberTable table;
+	
+	/** The player trying to prove a win in the search in progress **/
+	private Loyalty attacker;
+	
+	/** The number of nodes expanded by this search **/
+	private long nodeCount;
+	
+	/** The maximum number of nodes expanded by one solve **/
+	private long maxNodes = Long.MAX_VALUE;
+	
+	/** The number of nodes expanded when the solve in progress started **/
+	private long initialNodeCount;
+	
+	/** The solution tree of the last proven result **/
+	private String solution;
+	
+	/** The number of moves written out in the solution tree being built **/
+	private int solutionMoves;
+	
+	/** Whether or not the solution tree of the last proven result has every reply of the defender **/
+	private boolean solutionComplete;
+	
+	/**
+	 * Parameterized constructor, initializes table to given table
+	 * 
+	 * @param table	the table of proof and disproof numbers
+	 */
+	public ProofNumberSearch(ProofNumberTable table)
+	{
+		this.table = table;
+	}
+	
+	/**
+	 * Tries to prove a win for either player within the given number of moves of the given game
+	 * A win for the player to move is tried first, then a win for the other player
+	 * 
+	 * @param game	the game to be solved
+	 * @param maxDepth	the maximum number of moves of the proof
+	 * @return	the outcome for the player to move, unknown if neither win is proven within the depth and the node limit
+	 * @throws IOException
+	 */
+	public Result solve(Game game, int maxDepth) throws IOException
+	{
+		solution = null;
+		solutionComplete = false;
+		
+		if(prove(game, game.getTurn(), maxDepth))
+		{
+			return Result.WIN;
+		}
+		
+		if(prove(game, game.getTurn().getOther(), maxDepth))
+		{
+			return Result.LOSS;
+		}
+		
+		return Result.UNKNOWN;
+	}
+	
+	/**
+	 * Tries to prove a win for the given player, building the solution tree if it is proven
+	 * 
+	 * @param game	the game to be solved
+	 * @param player	the player whose win is to be proven
+	 * @param maxDepth	the maximum number of moves of the proof
+	 * @return	whether or not the win is proven
+	 * @throws IOException
+	 */
+	private boolean prove(Game game, Loyalty player, int maxDepth) throws IOException
+	{
+		table.clear();
+		
+		attacker = player;
+		initialNodeCount = nodeCount;
+		
+		MinimaxNodeContents contents = new MinimaxNodeContents(new Game(game));
+		long hash = ZobristHash.getHash(contents.getGame());
+		
+		long numbers = search(contents, hash, maxDepth, INFINITY, INFINITY);
+		
+		boolean proven = game.getTurn() == attacker ? getProofNumber(numbers) == 0 : getDisproofNumber(numbers) == 0;
+		
+		if(proven)
+		{
+			StringBuilder builder = new StringBuilder();
+			
+			solutionMoves = 0;
+			solutionComplete = true;
+			buildSolution(contents, hash, maxDepth, 0, builder);
+			
+			solution = builder.toString();
+		}
+		
+		return proven;
+	}
+	
+	/**
+	 * Searches the given position until its proof number reaches the first threshold or its disproof number the second
+	 * 
+	 * @param contents	the contents of the position
+	 * @param hash	the hash of the position
+	 * @param remaining	the number of moves left before the depth limit
+	 * @param proofThreshold	the threshold of the proof number
+	 * @param disproofThreshold	the threshold of the disproof number
+	 * @return	the proof number of the position in the high half and its disproof number in the low half
+	 * @throws IOException
+	 */
+	private long search(MinimaxNodeContents contents, long hash, int remaining, int proofThreshold, int disproofThreshold) throws IOException
+	{
+		nodeCount ++;
+		
+		long key = getKey(hash, remaining);
+		long initialCount = nodeCount;
+		
+		ArrayList<Move> moves = contents.getNextMoves();
+		
+		if(moves.isEmpty())
+		{
+			/** The player to move has lost **/
+			table.put(key, INFINITY, 0, 1);
+			
+			return pack(INFINITY, 0);
+		}
+		
+		if(remaining == 0)
+		{
+			/** The depth limit counts against the attacker **/
+			long numbers = contents.getGame().getTurn() == attacker ? pack(INFINITY, 0) : pack(0, INFINITY);
+			
+			table.put(key, getProofNumber(numbers), getDisproofNumber(numbers), 1);
+			
+			return numbers;
+		}
+		
+		int[] childProofNumbers = new int[moves.size()];
+		int[] childDisproofNumbers = new int[moves.size()];
+		long[] childHashes = new long[moves.size()];
+		
+		for(int i = 0; i < moves.size(); i ++)
+		{
+			childHashes[i] = ZobristHash.getNextHash(hash, moves.get(i));
+			
+			int index = table.find(getKey(childHashes[i], remaining - 1));
+			
+			childProofNumbers[i] = index < 0 ? 1 : table.getProofNumber(index);
+			childDisproofNumbers[i] = index < 0 ? 1 : table.getDisproofNumber(index);
+		}
+		
+		while(true)
+		{
+			int proofNumber = INFINITY;
+			int secondProofNumber = INFINITY;
+			int disproofNumber = 0;
+			int best = 0;
+			
+			for(int i = 0; i < moves.size(); i ++)
+			{
+				if(childDisproofNumbers[i] < proofNumber)
+				{
+					secondProofNumber = proofNumber;
+					proofNumber = childDisproofNumbers[i];
+					best = i;
+				}
+				else if(childDisproofNumbers[i] < secondProofNumber)
+				{
+					secondProofNumber = childDisproofNumbers[i];
+				}
+				
+				disproofNumber = (int) Math.min(INFINITY, (long) disproofNumber + childProofNumbers[i]);
+			}
+			
+			if(proofNumber >= proofThreshold || disproofNumber >= disproofThreshold || nodeCount - initialNodeCount >= maxNodes)
+			{
+				table.put(key, proofNumber, disproofNumber, (int) Math.min(nodeCount - initialCount + 1, Integer.MAX_VALUE));
+				
+				return pack(proofNumber, disproofNumber);
+			}
+			
+			int childProofThreshold = (int) Math.min(INFINITY, (long) disproofThreshold - disproofNumber + childProofNumbers[best]);
+			int childDisproofThreshold = Math.min(proofThreshold, secondProofNumber + 1);
+			
+			long numbers = search(contents.getNextContents(moves.get(best)), childHashes[best], remaining - 1, childProofThreshold, childDisproofThreshold);
+			
+			childProofNumbers[best] = getProofNumber(numbers);
+			childDisproofNumbers[best] = getDisproofNumber(numbers);
+		}
+	}
+	
+	/**
+	 * Writes the solution tree below the given proven position, one move per line indented by its depth
+	 * The attacker's winning move is written at its nodes, and every reply at the defender's nodes
+	 * The tree is marked incomplete if it is cut by the limit on its moves, or if a position whose numbers were replaced in the table cannot be proven again
+	 * 
+	 * @param contents	the contents of the position
+	 * @param hash	the hash of the position
+	 * @param remaining	the number of moves left before the depth limit
+	 * @param ply	the distance from the root
+	 * @param builder	the builder the tree is written to
+	 * @throws IOException
+	 */
+	private void buildSolution(MinimaxNodeContents contents, long hash, int remaining, int ply, StringBuilder builder) throws IOException
+	{
+		ArrayList<Move> moves = contents.getNextMoves();
+		
+		boolean attacking = contents.getGame().getTurn() == attacker;
+		
+		for(Move move : moves)
+		{
+			if(solutionMoves >= SOLUTION_LIMIT)
+			{
+				solutionComplete = false;
+				
+				return;
+			}
+			
+			long childHash = ZobristHash.getNextHash(hash, move);
+			MinimaxNodeContents childContents = contents.getNextContents(move);
+			
+			int index = table.find(getKey(childHash, remaining - 1));
+			
+			long numbers;
+			
+			if(index >= 0)
+			{
+				numbers = pack(table.getProofNumber(index), table.getDisproofNumber(index));
+			}
+			else
+			{
+				/** Children whose numbers were replaced in the table are proven again, each with a node limit of its own **/
+				initialNodeCount = nodeCount;
+				
+				numbers = search(childContents, childHash, remaining - 1, INFINITY, INFINITY);
+			}
+			
+			boolean proven = attacking ? getDisproofNumber(numbers) == 0 : getProofNumber(numbers) == 0;
+			
+			if(!proven)
+			{
+				/** A reply of the defender left out of the tree leaves it incomplete **/
+				if(!attacking)
+				{
+					solutionComplete = false;
+				}
+				
+				continue;
+			}
+			
+			for(int i = 0; i < ply; i ++)
+			{
+				builder.append('\t');
+			}
+			
+			builder.append(move).append('\n');
+			solutionMoves ++;
+			
+			buildSolution(childContents, childHash, remaining - 1, ply + 1, builder);
+			
+			if(attacking)
+			{
+				return;
+			}
+		}
+		
+		/** No winning move of the attacker could be proven again **/
+		if(attacking)
+		{
+			solutionComplete = false;
+		}
+	}
+	
+	/**
+	 * Returns the key of the given position at the given remaining depth, as positions are only proven up to a depth limit
+	 * 
+	 * @param hash	the hash of the position
+	 * @param remaining	the number of moves left before the depth limit
+	 * @return	the key of the position in the table
+	 */
+	private static long getKey(long hash, int remaining)
+	{
+		return hash ^ (remaining + 1)*DEPTH_KEY;
+	}
+	
+	/**
+	 * Packs the given numbers into a long
+	 * 
+	 * @param proofNumber	the proof number
+	 * @param disproofNumber	the disproof number
+	 * @return	the proof number in the high half and the disproof number in the low half
+	 */
+	private static long pack(int proofNumber, int disproofNumber)
+	{
+		return ((long) proofNumber << 32) | disproofNumber;
+	}
+	
+	/**
+	 * @param numbers	the packed numbers
+	 * @return	the proof number of the packed numbers
+	 */
+	private static int getProofNumber(long numbers)
+	{
+		return (int) (numbers >>> 32);
+	}
+	
+	/**
+	 * @param numbers	the packed numbers
+	 * @return	the disproof number of the packed numbers
+	 */
+	private static int getDisproofNumber(long numbers)
+	{
+		return (int) numbers;
+	}
+	
+	/**
+	 * Sets the maximum number of nodes expanded by each attempt of a solve, after which the result is unknown
+	 * 
+	 * @param maxNodes	the maximum number of nodes
+	 */
+	public void setMaxNodes(long maxNodes)
+	{
+		this.maxNodes = maxNodes;
+	}
+	
+	/**
+	 * @return	the solution tree of the last proven result, or null if the last solve proved nothing
+	 */
+	public String getSolution()
+	{
+		return solution;
+	}
+	
+	/**
+	 * @return	whether or not the solution tree of the last proven result has every reply of the defender, false if the last solve proved nothing
+	 */
+	public boolean isSolutionComplete()
+	{
+		return solutionComplete;
+	}
+	
+	/**
+	 * @return	the number of nodes expanded by this search
+	 */
+	public long getNodeCount()
+	{
+		return nodeCount;
+	}
+}
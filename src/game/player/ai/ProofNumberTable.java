@@ -0,0 +1,138 @@
+package game.player.ai;
+
+/**
+ * A class representing a fixed size table of proof and disproof numbers indexed by hash
+ * The table never grows, so proofs of any size run within the memory allocated when it is created
+ * Each position may be stored in either slot of a pair, and when both are taken the entry whose numbers took less work to compute may be replaced
+ * An entry is only replaced by one that took at least as much work, so that the roots of large subtrees are not lost to leaves
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class ProofNumberTable
+{
+	/** The default number of entries of a proof number table **/
+	public static final int DEFAULT_SIZE = 1 << 20;
+	
+	/** The hashes of the positions of the entries, zero for an empty slot **/
+	private long[] keys;
+	
+	/** The proof numbers of the entries **/
+	private int[] proofNumbers;
+	
+	/** The disproof numbers of the entries **/
+	private int[] disproofNumbers;
+	
+	/** The number of nodes expanded to compute the numbers of the entries **/
+	private int[] work;
+	
+	/** The mask reducing a hash to an index **/
+	private int mask;
+	
+	/**
+	 * Default constructor, initializes this table to the default size
+	 */
+	public ProofNumberTable()
+	{
+		this(DEFAULT_SIZE);
+	}
+	
+	/**
+	 * Parameterized constructor, initializes this table to the given size rounded up to a power of two
+	 * 
+	 * @param size	the minimum number of entries
+	 */
+	public ProofNumberTable(int size)
+	{
+		int capacity = Integer.highestOneBit(Math.max(size, 1));
+		
+		if(capacity < size)
+		{
+			capacity <<= 1;
+		}
+		
+		this.keys = new long[capacity];
+		this.proofNumbers = new int[capacity];
+		this.disproofNumbers = new int[capacity];
+		this.work = new int[capacity];
+		this.mask = capacity - 1;
+	}
+	
+	/**
+	 * Returns the index of the entry of the position with the given hash
+	 * 
+	 * @param key	the hash of the position
+	 * @return	the index of the entry, or -1 if the position is not stored
+	 */
+	public int find(long key)
+	{
+		int index = (int) key & mask;
+		
+		if(keys[index] == key && key != 0)
+		{
+			return index;
+		}
+		
+		index ^= 1;
+		
+		return keys[index] == key && key != 0 ? index : -1;
+	}
+	
+	/**
+	 * Stores the given numbers over the entry of the same position, an empty slot, or the entry of the pair which took less work
+	 * Nothing is stored if that entry took more work than the given numbers
+	 * 
+	 * @param key	the hash of the position
+	 * @param proofNumber	the proof number of the position
+	 * @param disproofNumber	the disproof number of the position
+	 * @param nodes	the number of nodes expanded to compute the numbers
+	 */
+	public void put(long key, int proofNumber, int disproofNumber, int nodes)
+	{
+		int index = (int) key & mask;
+		int other = index ^ 1;
+		
+		if(keys[other] == key || (keys[index] != key && (keys[other] == 0 || (keys[index] != 0 && work[other] < work[index]))))
+		{
+			index = other;
+		}
+		
+		if(keys[index] != key && keys[index] != 0 && work[index] > nodes)
+		{
+			return;
+		}
+		
+		keys[index] = key;
+		proofNumbers[index] = proofNumber;
+		disproofNumbers[index] = disproofNumber;
+		work[index] = nodes;
+	}
+	
+	/**
+	 * @param index	the index of an entry
+	 * @return	the proof number of the entry
+	 */
+	public int getProofNumber(int index)
+	{
+		return proofNumbers[index];
+	}
+	
+	/**
+	 * @param index	the index of an entry
+	 * @return	the disproof number of the entry
+	 */
+	public int getDisproofNumber(int index)
+	{
+		return disproofNumbers[index];
+	}
+	
+	/**
+	 * Removes all entries of this table
+	 */
+	public void clear()
+	{
+		for(int i = 0; i < keys.length; i ++)
+		{
+			keys[i] = 0;
+		}
+	}
+}
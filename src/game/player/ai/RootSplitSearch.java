@@ -0,0 +1,251 @@
+package game.player.ai;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A class searching the moves of a root in parallel on a worker pool shared by all searches of the program
+ * The pool is sized to the available processors, so that concurrent games share the cores rather than each starting a thread per move
+ * Every iteration searches the best move of the previous one first, then hands the others to the pool with a shared root alpha
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class RootSplitSearch
+{
+	/** A value exceeding every position value, used as the initial search window **/
+	private static final int INFINITY = NegamaxSearch.WIN_VALUE + 1;
+	
+	/** The worker pool shared by all root split searches **/
+	private static ExecutorService workers;
+	
+	/** The transposition table shared by all threads **/
+	private TranspositionTable transpositionTable;
+	
+	/** The negamax search of each thread **/
+	private ThreadLocal<NegamaxSearch> localSearches;
+	
+	/**
+	 * Parameterized constructor, initializes the transposition table to the given table
+	 * 
+	 * @param transpositionTable	the transposition table shared by all threads
+	 */
+	public RootSplitSearch(TranspositionTable transpositionTable)
+	{
+		this.transpositionTable = transpositionTable;
+		
+		this.localSearches = new ThreadLocal<NegamaxSearch>()
+		{
+			@Override
+			protected NegamaxSearch initialValue()
+			{
+				return new NegamaxSearch(RootSplitSearch.this.transpositionTable);
+			}
+		};
+	}
+	
+	/**
+	 * Searches the given root with iterative deepening up to the given depth
+	 * Among the moves proven best, one is chosen at random
+	 * 
+	 * @param root	the node at which the search begins
+	 * @param maxDepth	the depth of the last iteration
+	 * @return	the best child of the root with its value set, or null if the root has no children
+	 * @throws IOException
+	 */
+	public MinimaxNode iterativeDeepening(MinimaxNode root, int maxDepth) throws IOException
+	{
+		ArrayList<MinimaxSuperNode> children = root.getChildren();
+		
+		if(children.isEmpty())
+		{
+			return null;
+		}
+		
+		transpositionTable.newSearch();
+		
+		ArrayList<MinimaxNode> best = new ArrayList<MinimaxNode>();
+		
+		for(int depth = 1; depth <= maxDepth; depth ++)
+		{
+			best = searchRoot(root, depth);
+			
+			if(NegamaxSearch.isWinOrLoss(best.get(0).getValue()))
+			{
+				break;
+			}
+		}
+		
+		return best.get((int) (best.size()*Math.random()));
+	}
+	
+	/**
+	 * Searches every child of the given root to the given depth, setting their values
+	 * Children whose value fell below the root alpha when they were searched are given that upper bound
+	 * 
+	 * @param root	the node at which the search begins
+	 * @param depth	the depth to be searched
+	 * @return	the children whose exact values are the best
+	 * @throws IOException
+	 */
+	private ArrayList<MinimaxNode> searchRoot(MinimaxNode root, int depth) throws IOException
+	{
+		ArrayList<MinimaxSuperNode> children = root.getChildren();
+		
+		Collections.sort(children, new Comparator<MinimaxSuperNode>()
+		{
+			@Override
+			public int compare(MinimaxSuperNode first, MinimaxSuperNode second)
+			{
+				return Double.compare(second.getValue(), first.getValue());
+			}
+		});
+		
+		AtomicInteger alpha = new AtomicInteger(-INFINITY);
+		
+		boolean[] exact = new boolean[children.size()];
+		
+		/** The eldest child is searched first, so the others start with its value as alpha **/
+		exact[0] = searchChild(root, (MinimaxNode) children.get(0), depth, alpha);
+		
+		ArrayList<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+		
+		for(int i = 1; i < children.size(); i ++)
+		{
+			final MinimaxNode parent = root;
+			final MinimaxNode child = (MinimaxNode) children.get(i);
+			final int childDepth = depth;
+			final AtomicInteger rootAlpha = alpha;
+			
+			futures.add(getWorkers().submit(new Callable<Boolean>()
+			{
+				@Override
+				public Boolean call() throws IOException
+				{
+					return searchChild(parent, child, childDepth, rootAlpha);
+				}
+			}));
+		}
+		
+		for(int i = 0; i < futures.size(); i ++)
+		{
+			exact[i + 1] = await(futures.get(i));
+		}
+		
+		ArrayList<MinimaxNode> best = new ArrayList<MinimaxNode>();
+		
+		for(int i = 0; i < children.size(); i ++)
+		{
+			MinimaxNode child = (MinimaxNode) children.get(i);
+			
+			if(!exact[i] || (!best.isEmpty() && child.getValue() < best.get(0).getValue()))
+			{
+				continue;
+			}
+			
+			if(!best.isEmpty() && child.getValue() > best.get(0).getValue())
+			{
+				best.clear();
+			}
+			
+			best.add(child);
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * Searches the given child of the given root with the current root alpha, then raises the root alpha to its value
+	 * The window is widened by the smallest difference between two values, so that a child tying the best found so far gets an exact value
+	 * 
+	 * @param root	the node at which the search begins
+	 * @param child	the child to be searched
+	 * @param depth	the depth searched from the root
+	 * @param alpha	the root alpha
+	 * @return	whether or not the value of the child is exact rather than an upper bound
+	 * @throws IOException
+	 */
+	private boolean searchChild(MinimaxNode root, MinimaxNode child, int depth, AtomicInteger alpha) throws IOException
+	{
+		int currentAlpha = alpha.get();
+		
+		int value = localSearches.get().searchRootChild(root, child, depth, currentAlpha - 1, INFINITY);
+		
+		child.setValue(value);
+		
+		int previous = alpha.get();
+		
+		while(value > previous && !alpha.compareAndSet(previous, value))
+		{
+			previous = alpha.get();
+		}
+		
+		return value >= currentAlpha;
+	}
+	
+	/**
+	 * Waits for the search of a child to return
+	 * 
+	 * @param future	the search of the child
+	 * @return	whether or not the value of the child is exact
+	 * @throws IOException
+	 */
+	private static boolean await(Future<Boolean> future) throws IOException
+	{
+		try
+		{
+			return future.get();
+		}
+		catch(InterruptedException exception)
+		{
+			Thread.currentThread().interrupt();
+			
+			return false;
+		}
+		catch(ExecutionException exception)
+		{
+			if(exception.getCause() instanceof IOException)
+			{
+				throw (IOException) exception.getCause();
+			}
+			
+			throw new RuntimeException(exception.getCause());
+		}
+	}
+	
+	/**
+	 * Returns the worker pool shared by all root split searches, creating it on first use
+	 * 
+	 * @return	the worker pool
+	 */
+	private static synchronized ExecutorService getWorkers()
+	{
+		if(workers == null)
+		{
+			workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory()
+			{
+				/** The number of threads created so far **/
+				private int count;
+				
+				@Override
+				public Thread newThread(Runnable runnable)
+				{
+					Thread thread = new Thread(runnable, "Root search worker " + (++ count));
+					thread.setDaemon(true);
+					
+					return thread;
+				}
+			});
+		}
+		
+		return workers;
+	}
+}
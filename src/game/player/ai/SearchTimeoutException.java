@@ -0,0 +1,20 @@
+package game.player.ai;
+
+/**
+ * An exception thrown when a search runs past its deadline, unwinding the search in progress
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class SearchTimeoutException extends RuntimeException
+{
+	/** The serial version id of this exception **/
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Default constructor
+	 */
+	public SearchTimeoutException()
+	{
+		super("Search deadline passed");
+	}
+}
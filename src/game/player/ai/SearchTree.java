@@ -145,12 +145,12 @@ public class SearchTree
 		
 		if(hasWon)
 		{
-			return Double.MAX_VALUE;
+			return NegamaxSearch.WIN_VALUE;
 		}
 		
 		if(player.isDefeated())
 		{
-			return Double.MIN_VALUE;
+			return -NegamaxSearch.WIN_VALUE;
 		}
 		
 		for(Node gridNode : node.getBoard().getNodes())
@@ -0,0 +1,112 @@
+package game.player.ai;
+
+/**
+ * A class packing the entries of the transposition table into longs, so that the table holds no objects and an entry is read and written whole
+ * From the lowest bits up, an entry holds the key of the best move, the value, the remaining depth, the bound type and the age of the table
+ * The bound type is never zero, so neither is an entry, and zero marks an empty slot
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class TranspositionEntry
+{
+	/**
+	 * An enum representing the relation of a stored value to the true minimax value
+	 * 
+	 * @author Benjamin Cohen-Wang
+	 */
+	public static enum Bound
+	{
+		EXACT,
+		LOWER,
+		UPPER
+	}
+	
+	/** The bound types, indexed by ordinal **/
+	private static final Bound[] BOUNDS = Bound.values();
+	
+	/** The shift of the value of an entry **/
+	private static final int VALUE_SHIFT = 32;
+	
+	/** The shift of the remaining depth of an entry **/
+	private static final int DEPTH_SHIFT = 48;
+	
+	/** The shift of the bound type of an entry **/
+	private static final int BOUND_SHIFT = 55;
+	
+	/** The shift of the age of an entry **/
+	private static final int AGE_SHIFT = 57;
+	
+	/** The largest remaining depth an entry can hold **/
+	public static final int MAX_DEPTH = 0x7F;
+	
+	/** The mask of the age of an entry, ages being compared modulo its size **/
+	public static final int AGE_MASK = 0x3F;
+	
+	/**
+	 * Private constructor, entries are only handled as longs
+	 */
+	private TranspositionEntry()
+	{
+		
+	}
+	
+	/**
+	 * Returns the entry holding the given result
+	 * 
+	 * @param depth	the remaining depth searched, at most the maximum depth
+	 * @param value	the value found, within the range of a short
+	 * @param bound	the bound type of the value
+	 * @param bestMove	the key of the best move
+	 * @param age	the age of the table when the entry is stored
+	 * @return	the entry
+	 */
+	public static long getEntry(int depth, int value, Bound bound, int bestMove, int age)
+	{
+		return (bestMove & 0xFFFFFFFFL) | ((value & 0xFFFFL) << VALUE_SHIFT) | ((long) Math.min(depth, MAX_DEPTH) << DEPTH_SHIFT) | ((long) (bound.ordinal() + 1) << BOUND_SHIFT) | ((long) (age & AGE_MASK) << AGE_SHIFT);
+	}
+	
+	/**
+	 * @param entry	the entry
+	 * @return	the remaining depth searched
+	 */
+	public static int getDepth(long entry)
+	{
+		return (int) (entry >>> DEPTH_SHIFT) & MAX_DEPTH;
+	}
+	
+	/**
+	 * @param entry	the entry
+	 * @return	the value of the position
+	 */
+	public static int getValue(long entry)
+	{
+		return (short) (entry >>> VALUE_SHIFT);
+	}
+	
+	/**
+	 * @param entry	the entry
+	 * @return	the bound type of the value
+	 */
+	public static Bound getBound(long entry)
+	{
+		return BOUNDS[(int) (entry >>> BOUND_SHIFT & 3) - 1];
+	}
+	
+	/**
+	 * @param entry	the entry
+	 * @return	the key of the best move
+	 */
+	public static int getBestMove(long entry)
+	{
+		return (int) entry;
+	}
+	
+	/**
+	 * @param entry	the entry
+	 * @return	the age of the table when the entry was stored, modulo the size of the age mask
+	 */
+	public static int getAge(long entry)
+	{
+		return (int) (entry >>> AGE_SHIFT) & AGE_MASK;
+	}
+}
@@ -0,0 +1,140 @@
+package game.player.ai;
+
+import game.player.ai.TranspositionEntry.Bound;
+
+/**
+ * A class representing a fixed size transposition table indexed by zobrist hash
+ * Positions share entries regardless of the ply they are reached at
+ * Entries outlive the search that stored them, but entries of earlier searches are the first to be replaced
+ * Entries are packed into longs, each stored beside its hash xored with it, so that a slot torn by two threads writing at once is rejected as a miss
+ * A table may thus be shared by several searching threads without locking
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class TranspositionTable
+{
+	/** The default number of entries of a transposition table **/
+	public static final int DEFAULT_SIZE = 1 << 20;
+	
+	/** The hashes of the positions of the slots of this table, each xored with the entry of its slot **/
+	private long[] keys;
+	
+	/** The packed entries of the slots of this table, zero for an empty slot **/
+	private long[] entries;
+	
+	/** The mask reducing a hash to an index **/
+	private int mask;
+	
+	/** The number of searches started with this table **/
+	private volatile int age;
+	
+	/**
+	 * Default constructor, initializes this table to the default size
+	 */
+	public TranspositionTable()
+	{
+		this(DEFAULT_SIZE);
+	}
+	
+	/**
+	 * Parameterized constructor, initializes this table to the given size rounded up to a power of two
+	 * 
+	 * @param size	the minimum number of entries
+	 */
+	public TranspositionTable(int size)
+	{
+		int capacity = Integer.highestOneBit(Math.max(size, 1));
+		
+		if(capacity < size)
+		{
+			capacity <<= 1;
+		}
+		
+		this.keys = new long[capacity];
+		this.entries = new long[capacity];
+		this.mask = capacity - 1;
+	}
+	
+	/**
+	 * Returns the entry of the position with the given hash
+	 * 
+	 * @param key	the hash of the position
+	 * @return	the packed entry of the position, or zero if it is not stored
+	 */
+	public long get(long key)
+	{
+		int index = (int) key & mask;
+		
+		long entry = entries[index];
+		
+		if(entry != 0 && (keys[index] ^ entry) == key)
+		{
+			return entry;
+		}
+		
+		return 0;
+	}
+	
+	/**
+	 * Stores the given result, keeping a deeper entry of a different position in the same slot if it was stored by the current search
+	 * 
+	 * @param key	the hash of the position
+	 * @param depth	the remaining depth searched
+	 * @param value	the value found
+	 * @param bound	the bound type of the value
+	 * @param bestMove	the key of the best move, or zero if none is known
+	 */
+	public void put(long key, int depth, int value, Bound bound, int bestMove)
+	{
+		int index = (int) key & mask;
+		
+		long existing = entries[index];
+		boolean same = existing != 0 && (keys[index] ^ existing) == key;
+		
+		if(existing != 0 && !same && TranspositionEntry.getAge(existing) == (age & TranspositionEntry.AGE_MASK) && TranspositionEntry.getDepth(existing) > depth)
+		{
+			return;
+		}
+		
+		if(bestMove == 0 && same)
+		{
+			bestMove = TranspositionEntry.getBestMove(existing);
+		}
+		
+		long entry = TranspositionEntry.getEntry(depth, value, bound, bestMove, age);
+		
+		keys[index] = key ^ entry;
+		entries[index] = entry;
+	}
+	
+	/**
+	 * Marks the start of a new search, making all entries stored so far stale
+	 * Stale entries can still be probed, but no longer keep their slot against fresher ones
+	 */
+	public void newSearch()
+	{
+		age ++;
+	}
+	
+	/**
+	 * @return	the number of searches started with this table
+	 */
+	public int getAge()
+	{
+		return age;
+	}
+	
+	/**
+	 * Removes all entries of this table
+	 */
+	public void clear()
+	{
+		for(int i = 0; i < entries.length; i ++)
+		{
+			keys[i] = 0;
+			entries[i] = 0;
+		}
+		
+		age = 0;
+	}
+}
@@ -0,0 +1,543 @@
+package game.player.ai;
+
+import game.move.Move;
+import game.player.ai.TranspositionEntry.Bound;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class performing a young brothers wait parallel alpha-beta search on a fork join pool
+ * The eldest child of a node is searched first on the current thread, after which its younger brothers are forked with the improved alpha
+ * Younger brothers read the alpha of their parent as it rises, and all of them are abandoned once one of them causes a cutoff
+ * Nodes near the horizon are handed to a negamax search of the thread running them, which shares the transposition table
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class YbwcSearch
+{
+	/** The minimum remaining depth at which the children of a node are searched in parallel **/
+	private static final int SPLIT_DEPTH = 4;
+	
+	/** A value exceeding every position value, used as the initial search window **/
+	private static final int INFINITY = NegamaxSearch.WIN_VALUE + 1;
+	
+	/** The pool running the tasks of this search **/
+	private ForkJoinPool pool;
+	
+	/** The transposition table shared by all threads **/
+	private TranspositionTable transpositionTable;
+	
+	/** The negamax search of each thread, resolving the nodes near the horizon **/
+	private ThreadLocal<NegamaxSearch> localSearches;
+	
+	/** The negamax searches created so far, kept to sum their node counts **/
+	private List<NegamaxSearch> searches;
+	
+	/** The number of nodes split by this search **/
+	private AtomicLong nodeCount;
+	
+	/** The time in milliseconds at which the search in progress is abandoned **/
+	private volatile long deadline = Long.MAX_VALUE;
+	
+	/** Whether or not the search in progress has passed its deadline **/
+	private volatile boolean stopped;
+	
+	/**
+	 * Parameterized constructor, initializes the pool to the given number of threads
+	 * 
+	 * @param transpositionTable	the transposition table shared by all threads
+	 * @param threads	the number of threads of the pool
+	 */
+	public YbwcSearch(TranspositionTable transpositionTable, int threads)
+	{
+		this.pool = new ForkJoinPool(threads);
+		this.transpositionTable = transpositionTable;
+		this.searches = Collections.synchronizedList(new ArrayList<NegamaxSearch>());
+		this.nodeCount = new AtomicLong();
+		
+		this.localSearches = new ThreadLocal<NegamaxSearch>()
+		{
+			@Override
+			protected NegamaxSearch initialValue()
+			{
+				NegamaxSearch search = new NegamaxSearch(YbwcSearch.this.transpositionTable);
+				searches.add(search);
+				
+				return search;
+			}
+		};
+	}
+	
+	/**
+	 * Searches the given root with iterative deepening up to the given depth
+	 * 
+	 * @param root	the node at which the search begins
+	 * @param maxDepth	the depth of the last iteration
+	 * @return	the best child of the root with its value set, or null if the root has no children
+	 */
+	public MinimaxNode iterativeDeepening(MinimaxNode root, int maxDepth)
+	{
+		return iterativeDeepening(root, maxDepth, Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Searches the given root with iterative deepening until the given depth is reached or the given time has passed
+	 * An iteration running past the deadline is abandoned, keeping the best root child it had fully searched
+	 * 
+	 * @param root	the node at which the search begins
+	 * @param maxDepth	the depth of the last iteration
+	 * @param time	the time in milliseconds the search may take
+	 * @return	the best child of the root with its value set, or null if the root has no children
+	 */
+	public MinimaxNode iterativeDeepening(MinimaxNode root, int maxDepth, long time)
+	{
+		deadline = time == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + time;
+		stopped = false;
+		
+		transpositionTable.newSearch();
+		
+		long hash = ZobristHash.getHash(root.getGame());
+		
+		MinimaxNode best = null;
+		
+		for(int depth = 1; depth <= maxDepth && !stopped; depth ++)
+		{
+			NodeTask task = new NodeTask(root.getContents(), hash, depth, -INFINITY, INFINITY, 0, 0, NegamaxSearch.getReversiblePlies(root.getGame(), hash), null);
+			
+			pool.invoke(task);
+			
+			MinimaxNode child = getChild(root, task.getBestMove());
+			
+			if(child == null)
+			{
+				break;
+			}
+			
+			child.setValue(task.getBest());
+			best = child;
+			
+			if(NegamaxSearch.isWinOrLoss(best.getValue()))
+			{
+				break;
+			}
+		}
+		
+		deadline = Long.MAX_VALUE;
+		
+		if(best == null && !root.getChildren().isEmpty())
+		{
+			best = (MinimaxNode) root.getChildren().get(0);
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * Returns the child of the given root reached by the move with the given key
+	 * 
+	 * @param root	the root whose child is returned
+	 * @param moveKey	the key of the move leading to the child
+	 * @return	the child, or null if no child matches or if the key is shared by moves with different paths
+	 */
+	private static MinimaxNode getChild(MinimaxNode root, int moveKey)
+	{
+		MinimaxNode found = null;
+		
+		for(MinimaxSuperNode child : root.getChildren())
+		{
+			MinimaxNode childNode = (MinimaxNode) child;
+			
+			if(moveKey == 0 || childNode.getMove().getKey() != moveKey)
+			{
+				continue;
+			}
+			
+			if(found != null && !found.getMove().hasSamePath(childNode.getMove()))
+			{
+				return null;
+			}
+			
+			found = childNode;
+		}
+		
+		return found;
+	}
+	
+	/**
+	 * Stops the threads of this search, after which it may no longer be used
+	 */
+	public void shutdown()
+	{
+		pool.shutdown();
+	}
+	
+	/**
+	 * @return	the number of nodes visited by all threads, split nodes and negamax nodes alike
+	 */
+	public long getNodeCount()
+	{
+		long count = nodeCount.get();
+		
+		synchronized(searches)
+		{
+			for(NegamaxSearch search : searches)
+			{
+				count += search.getNodeCount();
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * @return	the number of quiescence nodes visited by all threads
+	 */
+	public long getQuiescenceNodeCount()
+	{
+		long count = 0;
+		
+		synchronized(searches)
+		{
+			for(NegamaxSearch search : searches)
+			{
+				count += search.getQuiescenceNodeCount();
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Resets the node counts of all threads
+	 */
+	public void resetNodeCount()
+	{
+		nodeCount.set(0);
+		
+		synchronized(searches)
+		{
+			for(NegamaxSearch search : searches)
+			{
+				search.resetNodeCount();
+			}
+		}
+	}
+	
+	/**
+	 * A class representing the search of one node, forking the searches of the younger brothers of its eldest child
+	 * 
+	 * @author Benjamin Cohen-Wang
+	 */
+	private class NodeTask extends RecursiveAction
+	{
+		/** The serial version id of this task **/
+		private static final long serialVersionUID = 1L;
+		
+		/** The contents of the node **/
+		private final MinimaxNodeContents contents;
+		
+		/** The hash of the node **/
+		private final long hash;
+		
+		/** The remaining depth to be searched **/
+		private final int depth;
+		
+		/** The lower bound of the search window, raised as children return **/
+		private volatile int alpha;
+		
+		/** The upper bound of the search window, lowered as the alpha of the parent rises **/
+		private volatile int beta;
+		
+		/** The distance of the node from the root **/
+		private final int ply;
+		
+		/** The key of the move leading to the node, or zero at the root **/
+		private final int previousMove;
+		
+		/** The number of reversible plies leading to the node, including those played in the game before the root **/
+		private final int reversiblePlies;
+		
+		/** The task of the parent node, or null at the root **/
+		private final NodeTask parent;
+		
+		/** The best value returned by a child so far **/
+		private int best = -INFINITY;
+		
+		/** The key of the move leading to the best child so far **/
+		private int bestMove;
+		
+		/** Whether or not a child has returned a value of at least beta **/
+		private volatile boolean cutoff;
+		
+		/**
+		 * Parameterized constructor, initializes all fields to given values
+		 * 
+		 * @param contents	the contents of the node
+		 * @param hash	the hash of the node
+		 * @param depth	the remaining depth to be searched
+		 * @param alpha	the lower bound of the search window
+		 * @param beta	the upper bound of the search window
+		 * @param ply	the distance of the node from the root
+		 * @param previousMove	the key of the move leading to the node
+		 * @param reversiblePlies	the number of reversible plies leading to the node
+		 * @param parent	the task of the parent node
+		 */
+		public NodeTask(MinimaxNodeContents contents, long hash, int depth, int alpha, int beta, int ply, int previousMove, int reversiblePlies, NodeTask parent)
+		{
+			this.contents = contents;
+			this.hash = hash;
+			this.depth = depth;
+			this.alpha = alpha;
+			this.beta = beta;
+			this.ply = ply;
+			this.previousMove = previousMove;
+			this.reversiblePlies = reversiblePlies;
+			this.parent = parent;
+		}
+		
+		/**
+		 * Searches the node and reports its value to the parent, unless the search was abandoned
+		 */
+		@Override
+		protected void compute()
+		{
+			int value;
+			
+			try
+			{
+				value = search();
+			}
+			catch(IOException exception)
+			{
+				exception.printStackTrace();
+				
+				return;
+			}
+			
+			if(parent != null && !isAborted())
+			{
+				parent.report(previousMove, -value);
+			}
+		}
+		
+		/**
+		 * Returns the value of the node, searching the eldest child before forking the others
+		 * 
+		 * @return	the value of the node, relative to the player to move
+		 * @throws IOException
+		 */
+		private int search() throws IOException
+		{
+			if(isAborted())
+			{
+				return 0;
+			}
+			
+			if(parent != null)
+			{
+				beta = Math.min(beta, -parent.alpha);
+			}
+			
+			if(depth < SPLIT_DEPTH && ply > 0)
+			{
+				return localSearches.get().search(contents, hash, depth, alpha, beta, ply, previousMove, reversiblePlies);
+			}
+			
+			int quietPlyLimit = contents.getGame().getQuietPlyLimit();
+			
+			/** Quiet move draw, as in the negamax search **/
+			if(ply > 0 && quietPlyLimit > 0 && reversiblePlies >= quietPlyLimit)
+			{
+				return 0;
+			}
+			
+			nodeCount.incrementAndGet();
+			
+			int originalAlpha = alpha;
+			
+			int hashMove = 0;
+			
+			/** Transposition table cutoff **/
+			long entry = transpositionTable.get(hash);
+			
+			if(entry != 0)
+			{
+				hashMove = TranspositionEntry.getBestMove(entry);
+				
+				if(TranspositionEntry.getDepth(entry) >= depth && ply > 0)
+				{
+					int value = NegamaxSearch.fromTableValue(TranspositionEntry.getValue(entry), ply);
+					Bound bound = TranspositionEntry.getBound(entry);
+					
+					if(bound == Bound.EXACT || (bound == Bound.LOWER && value >= beta) || (bound == Bound.UPPER && value <= alpha))
+					{
+						return value;
+					}
+				}
+			}
+			
+			ArrayList<Move> moves = contents.getNextMoves();
+			
+			if(moves.isEmpty())
+			{
+				return ply - NegamaxSearch.WIN_VALUE;
+			}
+			
+			orderMoves(moves, hashMove);
+			
+			/** The eldest brother is searched alone **/
+			createChild(moves.get(0)).compute();
+			
+			if(!cutoff && moves.size() > 1 && !isAborted())
+			{
+				/** The younger brothers are searched in parallel with the improved alpha **/
+				ArrayList<NodeTask> tasks = new ArrayList<NodeTask>();
+				
+				for(int i = 1; i < moves.size(); i ++)
+				{
+					tasks.add(createChild(moves.get(i)));
+				}
+				
+				invokeAll(tasks);
+			}
+			
+			int value = getBest();
+			
+			if(!isAborted())
+			{
+				/** Transposition table insertion **/
+				Bound bound = value <= originalAlpha ? Bound.UPPER : (value >= beta ? Bound.LOWER : Bound.EXACT);
+				
+				transpositionTable.put(hash, depth, NegamaxSearch.toTableValue(value, ply), bound, getBestMove());
+			}
+			
+			return value;
+		}
+		
+		/**
+		 * Returns the task searching the child reached by the given move
+		 * 
+		 * @param move	the move leading to the child
+		 * @return	the task of the child
+		 * @throws IOException
+		 */
+		private NodeTask createChild(Move move) throws IOException
+		{
+			return new NodeTask(contents.getNextContents(move), ZobristHash.getNextHash(hash, move), depth - 1, -beta, -alpha, ply + 1, move.getKey(), move.isIrreversible() ? 0 : reversiblePlies + 1, this);
+		}
+		
+		/**
+		 * Records the value of a child, raising alpha and flagging a cutoff if it reaches beta
+		 * 
+		 * @param move	the key of the move leading to the child
+		 * @param value	the value of the child, relative to the player to move at this node
+		 */
+		private synchronized void report(int move, int value)
+		{
+			if(value > best)
+			{
+				best = value;
+				bestMove = move;
+			}
+			
+			if(value > alpha)
+			{
+				alpha = value;
+			}
+			
+			if(alpha >= beta)
+			{
+				cutoff = true;
+			}
+		}
+		
+		/**
+		 * Returns whether or not the search of this node has been abandoned, because an ancestor was cut off or the deadline passed
+		 * 
+		 * @return	whether or not the value of this node is no longer needed
+		 */
+		private boolean isAborted()
+		{
+			if(!stopped && System.currentTimeMillis() >= deadline)
+			{
+				stopped = true;
+			}
+			
+			if(stopped)
+			{
+				return true;
+			}
+			
+			for(NodeTask ancestor = parent; ancestor != null; ancestor = ancestor.parent)
+			{
+				if(ancestor.cutoff)
+				{
+					return true;
+				}
+			}
+			
+			return false;
+		}
+		
+		/**
+		 * @return	the best value returned by a child so far
+		 */
+		public synchronized int getBest()
+		{
+			return best;
+		}
+		
+		/**
+		 * @return	the key of the move leading to the best child so far
+		 */
+		public synchronized int getBestMove()
+		{
+			return bestMove;
+		}
+	}
+	
+	/**
+	 * Moves the hash move to the front of the given moves, followed by the captures
+	 * 
+	 * @param moves	the moves to be ordered
+	 * @param hashMove	the key of the hash move, or zero if none is known
+	 */
+	private static void orderMoves(ArrayList<Move> moves, int hashMove)
+	{
+		ArrayList<Move> captures = new ArrayList<Move>();
+		ArrayList<Move> quietMoves = new ArrayList<Move>();
+		Move first = null;
+		
+		for(Move move : moves)
+		{
+			if(first == null && move.getKey() == hashMove)
+			{
+				first = move;
+			}
+			else if(move.getJumped().isEmpty())
+			{
+				quietMoves.add(move);
+			}
+			else
+			{
+				captures.add(move);
+			}
+		}
+		
+		moves.clear();
+		
+		if(first != null)
+		{
+			moves.add(first);
+		}
+		
+		moves.addAll(captures);
+		moves.addAll(quietMoves);
+	}
+}
@@ -0,0 +1,189 @@
+package game.player.ai;
+
+import game.Game;
+import game.board.CheckersBoard;
+import game.board.ChessBoard;
+import game.board.RectangularBoard;
+import game.board.node.Location;
+import game.board.node.Node;
+import game.move.ChessMove;
+import game.move.Move;
+import game.piece.Piece;
+import game.piece.Piece.Loyalty;
+import game.piece.chessPieces.Pawn;
+import game.piece.chessPieces.Rook;
+
+import java.util.ArrayList;
+
+/**
+ * A class computing zobrist hashes of games, used as keys of the transposition table
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class ZobristHash
+{
+	/** The key xored into the hash when it is the black player's turn **/
+	private static final long BLACK_TURN_KEY = mix(-1);
+	
+	/** The enumeration of a checkers king **/
+	private static final int CHECKERS_KING_ENUM = 2;
+	
+	/**
+	 * Returns the hash of the given game
+	 * 
+	 * @param game	the game to be hashed
+	 * @return	the hash of the given game
+	 */
+	public static long getHash(Game game)
+	{
+		RectangularBoard board = (RectangularBoard) game.getBoard();
+		
+		long hash = game.getTurn() == Loyalty.BLACK ? BLACK_TURN_KEY : 0;
+		
+		for(Node node : board.getNodes())
+		{
+			if(node.getPiece() != null)
+			{
+				hash ^= getPieceKey(board.getIndex(node.getLoc()), node.getPiece());
+			}
+		}
+		
+		return hash;
+	}
+	
+	/**
+	 * Returns the hash of the game resulting from the given move, without executing it
+	 * The move must have been generated on the board of the game whose hash is given
+	 * 
+	 * @param hash	the hash of the game before the move
+	 * @param move	the move to be applied
+	 * @return	the hash of the game after the move
+	 */
+	public static long getNextHash(long hash, Move move)
+	{
+		RectangularBoard board = move.getBoard();
+		ArrayList<Node> nodes = move.getNodes();
+		
+		Node initialNode = nodes.get(0);
+		Node terminalNode = nodes.get(nodes.size() - 1);
+		Piece movedPiece = initialNode.getPiece();
+		
+		hash ^= BLACK_TURN_KEY;
+		
+		for(Node jumped : move.getJumped())
+		{
+			hash ^= getPieceKey(board.getIndex(jumped.getLoc()), jumped.getPiece());
+		}
+		
+		int terminalEnum = movedPiece.getEnum();
+		int promotionRow = (1 - movedPiece.getLoyalty().getVal())*(board.getGrid().length - 1);
+		
+		if(board instanceof CheckersBoard && terminalNode.getLoc().getRow() == promotionRow)
+		{
+			terminalEnum = CHECKERS_KING_ENUM;
+		}
+		
+		if(board instanceof ChessBoard)
+		{
+			if(movedPiece instanceof Pawn && terminalNode.getLoc().getRow() == promotionRow)
+			{
+				terminalEnum = ((ChessMove) move).getPromotionEnum();
+			}
+			
+			if(movedPiece instanceof game.piece.chessPieces.King)
+			{
+				hash = getCastlingHash(hash, board, initialNode.getLoc(), terminalNode.getLoc());
+			}
+		}
+		
+		hash ^= getPieceKey(board.getIndex(initialNode.getLoc()), movedPiece);
+		hash ^= getPieceKey(board.getIndex(terminalNode.getLoc()), terminalEnum, movedPiece.getLoyalty(), true);
+		
+		return hash;
+	}
+	
+	/**
+	 * Returns the hash of the game with the turn passed to the other player
+	 * 
+	 * @param hash	the hash of the game
+	 * @return	the hash of the game with the other player to move
+	 */
+	public static long getPassedHash(long hash)
+	{
+		return hash ^ BLACK_TURN_KEY;
+	}
+	
+	/**
+	 * Applies the rook movement of a castling king move to the given hash
+	 * 
+	 * @param hash	the hash of the game before the move
+	 * @param board	the board the move is executed on
+	 * @param initial	the initial location of the king
+	 * @param terminal	the terminal location of the king
+	 * @return	the hash with the rook moved
+	 */
+	private static long getCastlingHash(long hash, RectangularBoard board, Location initial, Location terminal)
+	{
+		int colChange = terminal.getCol() - initial.getCol();
+		
+		if(colChange != 2 && colChange != -2)
+		{
+			return hash;
+		}
+		
+		Location rookLoc = new Location(terminal.getRow(), terminal.getCol() + (colChange > 0 ? 1 : -2));
+		Location newRookLoc = new Location(terminal.getRow(), terminal.getCol() + (colChange > 0 ? -1 : 1));
+		
+		Piece rook = board.getPiece(rookLoc);
+		
+		if(rook instanceof Rook && !rook.hasMoved())
+		{
+			hash ^= getPieceKey(board.getIndex(rookLoc), rook);
+			hash ^= getPieceKey(board.getIndex(newRookLoc), rook.getEnum(), rook.getLoyalty(), true);
+		}
+		
+		return hash;
+	}
+	
+	/**
+	 * Returns the key of the given piece at the given index
+	 * 
+	 * @param index	the index of the node containing the piece
+	 * @param piece	the piece to be hashed
+	 * @return	the key of the piece
+	 */
+	public static long getPieceKey(int index, Piece piece)
+	{
+		return getPieceKey(index, piece.getEnum(), piece.getLoyalty(), piece.hasMoved());
+	}
+	
+	/**
+	 * Returns the key of a piece with the given properties at the given index
+	 * 
+	 * @param index	the index of the node containing the piece
+	 * @param pieceEnum	the enumeration of the piece
+	 * @param loyalty	the loyalty of the piece
+	 * @param hasMoved	whether or not the piece has moved
+	 * @return	the key of the piece
+	 */
+	public static long getPieceKey(int index, int pieceEnum, Loyalty loyalty, boolean hasMoved)
+	{
+		return mix(((long) index << 8) | (pieceEnum << 2) | (loyalty.getVal() << 1) | (hasMoved ? 1 : 0));
+	}
+	
+	/**
+	 * Scrambles the given value into a well distributed key, following the splitmix64 finalizer
+	 * Keys are computed rather than tabulated so that boards of any size can be hashed
+	 * 
+	 * @param value	the value to be scrambled
+	 * @return	the scrambled key
+	 */
+	private static long mix(long value)
+	{
+		value += 0x9E3779B97F4A7C15L;
+		value = (value ^ (value >>> 30))*0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27))*0x94D049BB133111EBL;
+		
+		return value ^ (value >>> 31);
+	}
+}
@@ -0,0 +1,872 @@
+package game.player.ai.book;
+
+import game.Game;
+import game.board.CheckersBoard;
+import game.move.Move;
+import game.piece.Piece.Loyalty;
+import game.player.Player;
+import game.player.ai.Dummy;
+import game.player.ai.MinimaxNode;
+import game.player.ai.NegamaxSearch;
+import game.player.ai.TranspositionTable;
+import game.player.ai.ZobristHash;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * An offline tool growing an opening book from the initial checkers position by drop-out expansion
+ * Every book position is valued by a deep search, and values are backed up by minimax through the book, transpositions joining lines into a graph
+ * The next positions expanded are those nearest the root, a move costing one ply plus a weighted penalty for how much worse it is than the best move
+ * The searches of the children of a round of expansions are farmed out to a pool of worker threads, and the book is checkpointed so that a run can be resumed
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class BookBuilder
+{
+	/** The default depth of the search valuing each book position **/
+	public static final int DEFAULT_SEARCH_DEPTH = 10;
+	
+	/** The default penalty in plies of a move for each unit of material it loses against the best move **/
+	public static final double DEFAULT_DEVIATION_WEIGHT = 1;
+	
+	/** The default number of expansions **/
+	public static final int DEFAULT_EXPANSIONS = 100;
+	
+	/** The default file the book is written to **/
+	public static final String DEFAULT_BOOK_FILE = "checkers.book";
+	
+	/** The number of expansions between checkpoints **/
+	private static final int CHECKPOINT_INTERVAL = 16;
+	
+	/** The number identifying a checkpoint file **/
+	private static final int MAGIC = 0x43424B43;
+	
+	/** The file the progress of the builder is checkpointed to **/
+	private File checkpoint;
+	
+	/** The depth of the search valuing each book position **/
+	private int searchDepth;
+	
+	/** The penalty in plies of a move for each unit of material it loses against the best move **/
+	private double deviationWeight;
+	
+	/** The number of worker threads **/
+	private int threads;
+	
+	/** The executor running the workers **/
+	private ExecutorService executor;
+	
+	/** The negamax search of each worker **/
+	private ThreadLocal<NegamaxSearch> localSearches;
+	
+	/** The positions of the book, indexed by hash **/
+	private HashMap<Long, BookNode> nodes;
+	
+	/** The initial positions, with either player to move first **/
+	private ArrayList<BookNode> roots;
+	
+	/** The number of positions expanded so far **/
+	private int expansions;
+	
+	/**
+	 * Parameterized constructor, initializes all fields to given values
+	 * 
+	 * @param checkpoint	the file the progress of the builder is checkpointed to, resumed from if it exists
+	 * @param searchDepth	the depth of the search valuing each book position
+	 * @param deviationWeight	the penalty in plies of a move for each unit of material it loses against the best move
+	 * @param threads	the number of worker threads
+	 */
+	public BookBuilder(File checkpoint, int searchDepth, double deviationWeight, int threads)
+	{
+		this.checkpoint = checkpoint;
+		this.searchDepth = searchDepth;
+		this.deviationWeight = deviationWeight;
+		this.threads = threads;
+		this.nodes = new HashMap<Long, BookNode>();
+		this.roots = new ArrayList<BookNode>();
+		
+		this.localSearches = new ThreadLocal<NegamaxSearch>()
+		{
+			@Override
+			protected NegamaxSearch initialValue()
+			{
+				return new NegamaxSearch(new TranspositionTable());
+			}
+		};
+	}
+	
+	/**
+	 * Expands the given number of positions, resuming from the checkpoint if it exists, and checkpoints the book when done
+	 * 
+	 * @param count	the number of positions to be expanded
+	 * @throws IOException
+	 */
+	public void build(int count) throws IOException
+	{
+		executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+		{
+			/** The number of threads created so far **/
+			private int count;
+			
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "Book worker " + (++ count));
+				thread.setDaemon(true);
+				
+				return thread;
+			}
+		});
+		
+		try
+		{
+			if(checkpoint.exists())
+			{
+				load();
+			}
+			else
+			{
+				initialize();
+			}
+			
+			int target = expansions + count;
+			int lastCheckpoint = expansions;
+			
+			while(expansions < target)
+			{
+				backPropagate();
+				
+				ArrayList<BookNode> leaves = selectLeaves(Math.min(threads, target - expansions));
+				
+				if(leaves.isEmpty())
+				{
+					break;
+				}
+				
+				expand(leaves);
+				
+				if(expansions - lastCheckpoint >= CHECKPOINT_INTERVAL)
+				{
+					save();
+					
+					lastCheckpoint = expansions;
+				}
+				
+				System.out.println("Expanded " + expansions + " positions, book holds " + nodes.size() + " positions, root value " + roots.get(0).getValue());
+			}
+			
+			backPropagate();
+			save();
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * Creates the initial positions and values them
+	 * 
+	 * @throws IOException
+	 */
+	private void initialize() throws IOException
+	{
+		ArrayList<BookNode> created = new ArrayList<BookNode>();
+		
+		for(Loyalty turn : Loyalty.values())
+		{
+			BookNode root = getNode(getInitialGame(turn), turn, new int[0], created);
+			
+			roots.add(root);
+		}
+		
+		search(created);
+	}
+	
+	/**
+	 * Returns the initial checkers game with the given player to move
+	 * 
+	 * @param turn	the player to move first
+	 * @return	the initial game
+	 */
+	private static Game getInitialGame(Loyalty turn)
+	{
+		Game game = new Game(null, new Player[2], turn);
+		
+		game.setPlayers(new Player[] {new Dummy(null, Loyalty.RED, game), new Dummy(null, Loyalty.BLACK, game)});
+		game.setBoard(new CheckersBoard(game));
+		
+		return game;
+	}
+	
+	/**
+	 * Returns the book node of the given game, creating it if the game is not in the book yet
+	 * 
+	 * @param game	the game of the position
+	 * @param rootTurn	the player to move at the initial position the game is reached from
+	 * @param path	the keys of the moves reaching the game from the initial position
+	 * @param created	the list the node is added to if it is created
+	 * @return	the node of the game
+	 */
+	private BookNode getNode(Game game, Loyalty rootTurn, int[] path, ArrayList<BookNode> created)
+	{
+		long hash = ZobristHash.getHash(game);
+		
+		BookNode node = nodes.get(hash);
+		
+		if(node == null)
+		{
+			node = new BookNode(hash, game, rootTurn, path);
+			
+			nodes.put(hash, node);
+			created.add(node);
+		}
+		
+		return node;
+	}
+	
+	/**
+	 * Returns a copy of the given game after the move with the given key
+	 * 
+	 * @param game	the game the move is played in
+	 * @param key	the key of the move
+	 * @return	the game after the move, or null if no move has the key
+	 */
+	private static Game getNextGame(Game game, int key)
+	{
+		Game next = new Game(game);
+		
+		Move move = Move.getMove(next.getBoard().getPossibleMoves(next.getTurn()), key);
+		
+		if(move == null)
+		{
+			return null;
+		}
+		
+		next.getBoard().executeMove(move);
+		next.setTurn(next.getTurn().getOther());
+		
+		return next;
+	}
+	
+	/**
+	 * Values the given positions by deep searches run on the workers
+	 * 
+	 * @param searched	the positions to be valued
+	 * @throws IOException
+	 */
+	private void search(ArrayList<BookNode> searched) throws IOException
+	{
+		ArrayList<Callable<Double>> tasks = new ArrayList<Callable<Double>>();
+		
+		for(final BookNode node : searched)
+		{
+			tasks.add(new Callable<Double>()
+			{
+				@Override
+				public Double call() throws IOException
+				{
+					MinimaxNode best = localSearches.get().iterativeDeepening(new MinimaxNode(0, new Game(node.getGame()), null, null, 0, true), searchDepth);
+					
+					return best == null ? -NegamaxSearch.WIN_VALUE : best.getValue();
+				}
+			});
+		}
+		
+		try
+		{
+			ArrayList<Future<Double>> futures = new ArrayList<Future<Double>>(executor.invokeAll(tasks));
+			
+			for(int i = 0; i < searched.size(); i ++)
+			{
+				searched.get(i).setSearchValue(futures.get(i).get());
+			}
+		}
+		catch(InterruptedException exception)
+		{
+			Thread.currentThread().interrupt();
+			
+			throw new IOException("Book building interrupted");
+		}
+		catch(ExecutionException exception)
+		{
+			throw new IOException("Book worker failed", exception.getCause());
+		}
+	}
+	
+	/**
+	 * Backs the values of the book up from its leaves by minimax
+	 * A child still being valued higher up the same line, reached by a cycle of king moves, counts with its search value
+	 */
+	private void backPropagate()
+	{
+		for(BookNode node : nodes.values())
+		{
+			node.setVisited(false);
+		}
+		
+		for(BookNode root : roots)
+		{
+			backPropagate(root);
+		}
+	}
+	
+	/**
+	 * Backs the value of the given position up from its children
+	 * 
+	 * @param node	the position to be valued
+	 * @return	the value of the position, relative to the player to move
+	 */
+	private double backPropagate(BookNode node)
+	{
+		if(node.isVisited())
+		{
+			return node.getValue();
+		}
+		
+		node.setVisited(true);
+		node.setValue(node.getSearchValue());
+		
+		if(!node.getChildren().isEmpty())
+		{
+			double value = -NegamaxSearch.WIN_VALUE;
+			
+			for(BookNode child : node.getChildren())
+			{
+				value = Math.max(value, -backPropagate(child));
+			}
+			
+			node.setValue(value);
+		}
+		
+		return node.getValue();
+	}
+	
+	/**
+	 * Returns the unexpanded positions with the lowest drop-out priorities, the priority of a position being its cheapest path from an initial position
+	 * 
+	 * @param count	the largest number of positions returned
+	 * @return	the positions to be expanded, cheapest first
+	 */
+	private ArrayList<BookNode> selectLeaves(int count)
+	{
+		for(BookNode node : nodes.values())
+		{
+			node.setPriority(Double.POSITIVE_INFINITY);
+		}
+		
+		PriorityQueue<BookNode> queue = new PriorityQueue<BookNode>(16, new Comparator<BookNode>()
+		{
+			@Override
+			public int compare(BookNode first, BookNode second)
+			{
+				return Double.compare(first.getPriority(), second.getPriority());
+			}
+		});
+		
+		for(BookNode root : roots)
+		{
+			root.setPriority(0);
+			queue.add(root);
+		}
+		
+		ArrayList<BookNode> leaves = new ArrayList<BookNode>();
+		
+		while(!queue.isEmpty() && leaves.size() < count)
+		{
+			BookNode node = queue.poll();
+			
+			if(node.isSelected())
+			{
+				continue;
+			}
+			
+			node.setSelected(true);
+			
+			if(!node.isExpanded())
+			{
+				leaves.add(node);
+				
+				continue;
+			}
+			
+			for(BookNode child : node.getChildren())
+			{
+				double priority = node.getPriority() + 1 + deviationWeight*(node.getValue() + child.getValue())/NegamaxSearch.VALUE_SCALE;
+				
+				if(priority < child.getPriority())
+				{
+					child.setPriority(priority);
+					queue.add(child);
+				}
+			}
+		}
+		
+		for(BookNode node : nodes.values())
+		{
+			node.setSelected(false);
+		}
+		
+		return leaves;
+	}
+	
+	/**
+	 * Expands the given positions, adding their children to the book and valuing the new ones
+	 * 
+	 * @param leaves	the positions to be expanded
+	 * @throws IOException
+	 */
+	private void expand(ArrayList<BookNode> leaves) throws IOException
+	{
+		ArrayList<BookNode> created = new ArrayList<BookNode>();
+		
+		for(BookNode leaf : leaves)
+		{
+			link(leaf, created);
+		}
+		
+		search(created);
+		
+		expansions += leaves.size();
+	}
+	
+	/**
+	 * Marks the given position as expanded and links it to the positions of its moves, creating those not in the book yet
+	 * 
+	 * @param node	the position to be expanded
+	 * @param created	the list the positions created are added to
+	 */
+	private void link(BookNode node, ArrayList<BookNode> created)
+	{
+		Game game = node.getGame();
+		
+		for(Move move : game.getBoard().getPossibleMoves(game.getTurn()))
+		{
+			int[] path = new int[node.getPath().length + 1];
+			
+			System.arraycopy(node.getPath(), 0, path, 0, node.getPath().length);
+			path[path.length - 1] = move.getKey();
+			
+			node.addChild(move.getKey(), getNode(getNextGame(game, move.getKey()), node.getRootTurn(), path, created));
+		}
+		
+		node.setExpanded();
+	}
+	
+	/**
+	 * Writes the book built so far, every position expanded holding its moves, the moves keeping the best value having weight one and the others zero
+	 * 
+	 * @param file	the book file to be written
+	 * @throws IOException
+	 */
+	public void writeBook(File file) throws IOException
+	{
+		TreeMap<Long, ArrayList<BookMove>> positions = new TreeMap<Long, ArrayList<BookMove>>();
+		
+		for(BookNode node : nodes.values())
+		{
+			if(node.getChildren().isEmpty())
+			{
+				continue;
+			}
+			
+			ArrayList<BookMove> bookMoves = new ArrayList<BookMove>();
+			
+			for(int i = 0; i < node.getChildren().size(); i ++)
+			{
+				bookMoves.add(new BookMove(node.getMoveKeys().get(i), -node.getChildren().get(i).getValue() >= node.getValue() ? 1 : 0));
+			}
+			
+			positions.put(node.getHash(), bookMoves);
+		}
+		
+		OpeningBook.write(file, positions);
+	}
+	
+	/**
+	 * Writes the book to the checkpoint file, replacing the previous checkpoint only once the new one is complete
+	 * Each position is stored with the path reaching it, its search value and whether it was expanded
+	 * 
+	 * @throws IOException
+	 */
+	private void save() throws IOException
+	{
+		File temporary = new File(checkpoint.getPath() + ".tmp");
+		
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+		
+		try
+		{
+			output.writeInt(MAGIC);
+			output.writeInt(searchDepth);
+			output.writeInt(expansions);
+			output.writeInt(nodes.size());
+			
+			for(BookNode node : nodes.values())
+			{
+				output.writeByte(node.getRootTurn().getVal());
+				output.writeInt(node.getPath().length);
+				
+				for(int key : node.getPath())
+				{
+					output.writeInt(key);
+				}
+				
+				output.writeDouble(node.getSearchValue());
+				output.writeBoolean(node.isExpanded());
+			}
+		}
+		finally
+		{
+			output.close();
+		}
+		
+		if(checkpoint.exists() && !checkpoint.delete() || !temporary.renameTo(checkpoint))
+		{
+			throw new IOException("Could not replace checkpoint: " + checkpoint);
+		}
+	}
+	
+	/**
+	 * Reads the book from the checkpoint file, replaying the path of each position and relinking the positions expanded
+	 * 
+	 * @throws IOException
+	 */
+	private void load() throws IOException
+	{
+		DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(checkpoint)));
+		
+		ArrayList<BookNode> expanded = new ArrayList<BookNode>();
+		
+		try
+		{
+			if(input.readInt() != MAGIC)
+			{
+				throw new IOException("Not a book checkpoint: " + checkpoint);
+			}
+			
+			if(input.readInt() != searchDepth)
+			{
+				throw new IOException("Checkpoint searched to another depth: " + checkpoint);
+			}
+			
+			expansions = input.readInt();
+			
+			int size = input.readInt();
+			
+			Game[] initialGames = new Game[Loyalty.values().length];
+			
+			for(Loyalty turn : Loyalty.values())
+			{
+				initialGames[turn.getVal()] = getInitialGame(turn);
+			}
+			
+			for(int i = 0; i < size; i ++)
+			{
+				Loyalty rootTurn = Loyalty.values()[input.readByte()];
+				
+				int[] path = new int[input.readInt()];
+				
+				Game game = initialGames[rootTurn.getVal()];
+				
+				for(int j = 0; j < path.length; j ++)
+				{
+					path[j] = input.readInt();
+					
+					game = getNextGame(game, path[j]);
+					
+					if(game == null)
+					{
+						throw new IOException("Illegal move in checkpoint: " + checkpoint);
+					}
+				}
+				
+				BookNode node = getNode(game, rootTurn, path, new ArrayList<BookNode>());
+				
+				node.setSearchValue(input.readDouble());
+				
+				if(input.readBoolean())
+				{
+					expanded.add(node);
+				}
+				
+				if(path.length == 0)
+				{
+					roots.add(node);
+				}
+			}
+		}
+		finally
+		{
+			input.close();
+		}
+		
+		for(BookNode node : expanded)
+		{
+			ArrayList<BookNode> created = new ArrayList<BookNode>();
+			
+			link(node, created);
+			
+			if(!created.isEmpty())
+			{
+				throw new IOException("Checkpoint misses children of an expanded position: " + checkpoint);
+			}
+		}
+	}
+	
+	/**
+	 * Grows the opening book and writes it
+	 * Arguments are the book file, the number of expansions, the search depth and the number of threads, each optional
+	 * The checkpoint is kept next to the book file, and a run with the same book file resumes from it
+	 * 
+	 * @param args	the command line arguments
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		File book = new File(args.length > 0 ? args[0] : DEFAULT_BOOK_FILE);
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_EXPANSIONS;
+		int searchDepth = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SEARCH_DEPTH;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		
+		BookBuilder builder = new BookBuilder(new File(book.getPath() + ".checkpoint"), searchDepth, DEFAULT_DEVIATION_WEIGHT, threads);
+		
+		builder.build(count);
+		builder.writeBook(book);
+	}
+	
+	/**
+	 * A class representing a position of the book being built
+	 * 
+	 * @author Benjamin Cohen-Wang
+	 */
+	private static class BookNode
+	{
+		/** The hash of the position **/
+		private long hash;
+		
+		/** The game of the position, released once it is expanded **/
+		private Game game;
+		
+		/** The player to move at the initial position the position was first reached from **/
+		private Loyalty rootTurn;
+		
+		/** The keys of the moves first reaching the position from the initial position **/
+		private int[] path;
+		
+		/** The value of the deep search of the position, relative to the player to move **/
+		private double searchValue;
+		
+		/** The value of the position backed up through the book, relative to the player to move **/
+		private double value;
+		
+		/** Whether or not the children of the position were added to the book **/
+		private boolean expanded;
+		
+		/** The keys of the moves of the position, if it was expanded **/
+		private ArrayList<Integer> moveKeys = new ArrayList<Integer>();
+		
+		/** The positions reached by the moves of the position, in the same order **/
+		private ArrayList<BookNode> children = new ArrayList<BookNode>();
+		
+		/** The drop-out priority of the position during a selection **/
+		private double priority;
+		
+		/** Whether or not the position was taken from the queue during a selection **/
+		private boolean selected;
+		
+		/** Whether or not the position was reached during a back propagation **/
+		private boolean visited;
+		
+		/**
+		 * Parameterized constructor, initializes all fields to given values
+		 * 
+		 * @param hash	the hash of the position
+		 * @param game	the game of the position
+		 * @param rootTurn	the player to move at the initial position the position is reached from
+		 * @param path	the keys of the moves reaching the position from the initial position
+		 */
+		public BookNode(long hash, Game game, Loyalty rootTurn, int[] path)
+		{
+			this.hash = hash;
+			this.game = game;
+			this.rootTurn = rootTurn;
+			this.path = path;
+		}
+		
+		/**
+		 * Adds the given child reached by the move with the given key
+		 * 
+		 * @param key	the key of the move
+		 * @param child	the position reached by the move
+		 */
+		public void addChild(int key, BookNode child)
+		{
+			moveKeys.add(key);
+			children.add(child);
+		}
+		
+		/**
+		 * Marks the position as expanded and releases its game
+		 */
+		public void setExpanded()
+		{
+			this.expanded = true;
+			this.game = null;
+		}
+		
+		/**
+		 * @return	the hash of the position
+		 */
+		public long getHash()
+		{
+			return hash;
+		}
+		
+		/**
+		 * @return	the game of the position, or null if it was expanded
+		 */
+		public Game getGame()
+		{
+			return game;
+		}
+		
+		/**
+		 * @return	the player to move at the initial position the position was first reached from
+		 */
+		public Loyalty getRootTurn()
+		{
+			return rootTurn;
+		}
+		
+		/**
+		 * @return	the keys of the moves first reaching the position from the initial position
+		 */
+		public int[] getPath()
+		{
+			return path;
+		}
+		
+		/**
+		 * @return	the value of the deep search of the position
+		 */
+		public double getSearchValue()
+		{
+			return searchValue;
+		}
+		
+		/**
+		 * @param searchValue	the value of the deep search of the position
+		 */
+		public void setSearchValue(double searchValue)
+		{
+			this.searchValue = searchValue;
+		}
+		
+		/**
+		 * @return	the value of the position backed up through the book
+		 */
+		public double getValue()
+		{
+			return value;
+		}
+		
+		/**
+		 * @param value	the value of the position backed up through the book
+		 */
+		public void setValue(double value)
+		{
+			this.value = value;
+		}
+		
+		/**
+		 * @return	whether or not the children of the position were added to the book
+		 */
+		public boolean isExpanded()
+		{
+			return expanded;
+		}
+		
+		/**
+		 * @return	the keys of the moves of the position
+		 */
+		public ArrayList<Integer> getMoveKeys()
+		{
+			return moveKeys;
+		}
+		
+		/**
+		 * @return	the positions reached by the moves of the position
+		 */
+		public ArrayList<BookNode> getChildren()
+		{
+			return children;
+		}
+		
+		/**
+		 * @return	the drop-out priority of the position
+		 */
+		public double getPriority()
+		{
+			return priority;
+		}
+		
+		/**
+		 * @param priority	the drop-out priority of the position
+		 */
+		public void setPriority(double priority)
+		{
+			this.priority = priority;
+		}
+		
+		/**
+		 * @return	whether or not the position was taken from the queue during the selection
+		 */
+		public boolean isSelected()
+		{
+			return selected;
+		}
+		
+		/**
+		 * @param selected	whether or not the position was taken from the queue during the selection
+		 */
+		public void setSelected(boolean selected)
+		{
+			this.selected = selected;
+		}
+		
+		/**
+		 * @return	whether or not the position was reached during the back propagation
+		 */
+		public boolean isVisited()
+		{
+			return visited;
+		}
+		
+		/**
+		 * @param visited	whether or not the position was reached during the back propagation
+		 */
+		public void setVisited(boolean visited)
+		{
+			this.visited = visited;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package game.player.ai.book;
+
+/**
+ * A class representing a move of the opening book, identified by its key, with the weight it is played with
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class BookMove
+{
+	/** The key of the move **/
+	private int key;
+	
+	/** The weight of the move, relative to the other moves of its position, zero for a move which is known but never played **/
+	private int weight;
+	
+	/**
+	 * Parameterized constructor, initializes all fields to given values
+	 * 
+	 * @param key	the key of the move
+	 * @param weight	the weight of the move
+	 */
+	public BookMove(int key, int weight)
+	{
+		this.key = key;
+		this.weight = weight;
+	}
+	
+	/**
+	 * @return	the key of the move
+	 */
+	public int getKey()
+	{
+		return key;
+	}
+	
+	/**
+	 * @return	the weight of the move
+	 */
+	public int getWeight()
+	{
+		return weight;
+	}
+}
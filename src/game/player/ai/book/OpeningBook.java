@@ -0,0 +1,227 @@
+package game.player.ai.book;
+
+import game.Game;
+import game.move.Move;
+import game.player.ai.ZobristHash;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A class reading an opening book, a file of positions with the moves to be played from them
+ * The file holds a header followed by fixed size entries of a position hash, a move key and a weight, sorted by hash, so a position is found by binary search
+ * The file is memory mapped, so that probes never copy it into the heap and processes playing from the same book share its pages
+ * Probes are safe from several threads at once, as the mapped file is only read through absolute gets
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class OpeningBook
+{
+	/** The number identifying an opening book file **/
+	private static final int MAGIC = 0x43424F4B;
+	
+	/** The size in bytes of the header, the magic number followed by the number of entries **/
+	private static final int HEADER_SIZE = 8;
+	
+	/** The size in bytes of an entry, the position hash followed by the move key and the weight **/
+	private static final int ENTRY_SIZE = 16;
+	
+	/** The mapped file of this book **/
+	private MappedByteBuffer buffer;
+	
+	/** The number of entries of this book **/
+	private int size;
+	
+	/**
+	 * Parameterized constructor, maps the given book file
+	 * 
+	 * @param file	the book file
+	 * @throws IOException
+	 */
+	public OpeningBook(File file) throws IOException
+	{
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		
+		try
+		{
+			this.buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length());
+		}
+		finally
+		{
+			input.close();
+		}
+		
+		if(buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+		{
+			throw new IOException("Not an opening book: " + file);
+		}
+		
+		this.size = buffer.getInt(4);
+		
+		if(buffer.capacity() != HEADER_SIZE + (long) size*ENTRY_SIZE)
+		{
+			throw new IOException("Wrong size of opening book: " + file);
+		}
+	}
+	
+	/**
+	 * Returns the book moves of the given game
+	 * If a stored move is not legal the position only shares its hash with a book position, and no moves are returned
+	 * 
+	 * @param game	the game to be probed
+	 * @return	the book moves of the game, empty if it is not in this book
+	 */
+	public ArrayList<BookMove> probe(Game game)
+	{
+		ArrayList<BookMove> bookMoves = new ArrayList<BookMove>();
+		
+		long hash = ZobristHash.getHash(game);
+		
+		ArrayList<Move> moves = game.getBoard().getPossibleMoves(game.getTurn());
+		
+		for(int entry = getFirstEntry(hash); entry < size && getHash(entry) == hash; entry ++)
+		{
+			BookMove bookMove = new BookMove(buffer.getInt(HEADER_SIZE + entry*ENTRY_SIZE + 8), buffer.getInt(HEADER_SIZE + entry*ENTRY_SIZE + 12));
+			
+			if(Move.getMove(moves, bookMove.getKey()) == null)
+			{
+				return new ArrayList<BookMove>();
+			}
+			
+			bookMoves.add(bookMove);
+		}
+		
+		return bookMoves;
+	}
+	
+	/**
+	 * Returns a move of the given game chosen at random among its book moves, in proportion to their weights
+	 * 
+	 * @param game	the game whose move is chosen
+	 * @return	the chosen move, or null if the game is not in this book or none of its moves are played
+	 */
+	public Move getMove(Game game)
+	{
+		ArrayList<BookMove> bookMoves = probe(game);
+		
+		int total = 0;
+		
+		for(BookMove bookMove : bookMoves)
+		{
+			total += bookMove.getWeight();
+		}
+		
+		if(total <= 0)
+		{
+			return null;
+		}
+		
+		int choice = ThreadLocalRandom.current().nextInt(total);
+		
+		for(BookMove bookMove : bookMoves)
+		{
+			choice -= bookMove.getWeight();
+			
+			if(choice < 0)
+			{
+				return Move.getMove(game.getBoard().getPossibleMoves(game.getTurn()), bookMove.getKey());
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Returns the first entry whose hash is not lower than the given hash
+	 * 
+	 * @param hash	the hash searched for
+	 * @return	the index of the entry, or the number of entries if every hash is lower
+	 */
+	private int getFirstEntry(long hash)
+	{
+		int low = 0;
+		int high = size;
+		
+		while(low < high)
+		{
+			int middle = (low + high) >>> 1;
+			
+			if(getHash(middle) < hash)
+			{
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+		
+		return low;
+	}
+	
+	/**
+	 * @param entry	the index of the entry
+	 * @return	the position hash of the entry
+	 */
+	private long getHash(int entry)
+	{
+		return buffer.getLong(HEADER_SIZE + entry*ENTRY_SIZE);
+	}
+	
+	/**
+	 * Writes a book file holding the given positions
+	 * 
+	 * @param file	the book file to be written
+	 * @param positions	the book moves of each position, indexed by position hash
+	 * @throws IOException
+	 */
+	public static void write(File file, SortedMap<Long, ArrayList<BookMove>> positions) throws IOException
+	{
+		int size = 0;
+		
+		for(ArrayList<BookMove> bookMoves : positions.values())
+		{
+			size += bookMoves.size();
+		}
+		
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		
+		try
+		{
+			output.writeInt(MAGIC);
+			output.writeInt(size);
+			
+			for(Map.Entry<Long, ArrayList<BookMove>> position : positions.entrySet())
+			{
+				for(BookMove bookMove : position.getValue())
+				{
+					output.writeLong(position.getKey());
+					output.writeInt(bookMove.getKey());
+					output.writeInt(bookMove.getWeight());
+				}
+			}
+		}
+		finally
+		{
+			output.close();
+		}
+	}
+	
+	/**
+	 * @return	the number of entries of this book
+	 */
+	public int getSize()
+	{
+		return size;
+	}
+}
@@ -0,0 +1,194 @@
+package game.player.ai.endgame;
+
+import game.Game;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A class reading the checkers endgame database written by the endgame generator
+ * Each slice file holds one byte per index of its slice, and is memory mapped so that probes never copy it into the heap
+ * A byte holds the value of the position together with its distance in plies to the end of the game under perfect play, positive for a win, negative for a loss and zero for a draw
+ * Wins always end after an odd number of plies and losses after an even one, so a byte only holds half of the distance
+ * Probes are safe from several threads at once, as the mapped files are only read through absolute gets
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class EndgameDatabase
+{
+	/**
+	 * An enum representing the game theoretic value of an endgame position for the player to move
+	 * 
+	 * @author Benjamin Cohen-Wang
+	 */
+	public static enum Value
+	{
+		DRAW,
+		WIN,
+		LOSS
+	}
+	
+	/** The pattern of the names of slice files, capturing the four piece counts **/
+	private static final Pattern FILE_NAME = Pattern.compile("checkers-(\\d)(\\d)(\\d)(\\d)\\.edb");
+	
+	/** The result of a probe of a position this database does not cover **/
+	public static final int UNKNOWN = Integer.MIN_VALUE;
+	
+	/** The longest distance a byte of a slice file can hold **/
+	public static final int MAX_DISTANCE = 2*Byte.MAX_VALUE - 1;
+	
+	/** The slices of this database, indexed by key **/
+	private HashMap<Integer, EndgameSlice> slices;
+	
+	/** The mapped files of the slices of this database, indexed by key **/
+	private HashMap<Integer, MappedByteBuffer> buffers;
+	
+	/** The largest number of pieces of any slice of this database **/
+	private int maxPieces;
+	
+	/**
+	 * Parameterized constructor, maps every slice file of the given directory
+	 * 
+	 * @param directory	the directory the endgame generator wrote to
+	 * @throws IOException
+	 */
+	public EndgameDatabase(File directory) throws IOException
+	{
+		this.slices = new HashMap<Integer, EndgameSlice>();
+		this.buffers = new HashMap<Integer, MappedByteBuffer>();
+		
+		File[] files = directory.listFiles();
+		
+		if(files == null)
+		{
+			throw new IOException("Not a directory: " + directory);
+		}
+		
+		for(File file : files)
+		{
+			Matcher matcher = FILE_NAME.matcher(file.getName());
+			
+			if(!matcher.matches())
+			{
+				continue;
+			}
+			
+			EndgameSlice slice = new EndgameSlice(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)), Integer.parseInt(matcher.group(4)));
+			
+			RandomAccessFile input = new RandomAccessFile(file, "r");
+			
+			try
+			{
+				if(input.length() != slice.getSize())
+				{
+					throw new IOException("Wrong size of endgame file: " + file);
+				}
+				
+				buffers.put(slice.getKey(), input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length()));
+			}
+			finally
+			{
+				input.close();
+			}
+			
+			slices.put(slice.getKey(), slice);
+			maxPieces = Math.max(maxPieces, slice.getPieceCount());
+		}
+	}
+	
+	/**
+	 * Returns the code of the given game for the player to move
+	 * 
+	 * @param game	the game to be probed
+	 * @return	the code of the game, or UNKNOWN if it is not covered by this database
+	 */
+	public int probe(Game game)
+	{
+		EndgamePosition position = EndgamePosition.getPosition(game, maxPieces);
+		
+		return position == null ? UNKNOWN : probe(position);
+	}
+	
+	/**
+	 * Returns the code of the given position for the player to move
+	 * 
+	 * @param position	the position to be probed
+	 * @return	the code of the position, or UNKNOWN if it is not covered by this database
+	 */
+	public int probe(EndgamePosition position)
+	{
+		if(position.getMoverMen() == 0 && position.getMoverKings() == 0)
+		{
+			return getCode(Value.LOSS, 0);
+		}
+		
+		int key = EndgameSlice.getKey(position);
+		
+		MappedByteBuffer buffer = buffers.get(key);
+		
+		if(buffer == null)
+		{
+			return UNKNOWN;
+		}
+		
+		return buffer.get((int) slices.get(key).getIndex(position));
+	}
+	
+	/**
+	 * Returns the code of a position with the given value and distance
+	 * 
+	 * @param value	the value of the position
+	 * @param distance	the number of plies to the end of the game, at most the maximum distance
+	 * @return	the code of the position
+	 */
+	public static byte getCode(Value value, int distance)
+	{
+		if(value == Value.DRAW)
+		{
+			return 0;
+		}
+		
+		return (byte) (value == Value.WIN ? (distance + 1)/2 : -distance/2 - 1);
+	}
+	
+	/**
+	 * Returns the value of a position with the given code
+	 * 
+	 * @param code	the code of the position
+	 * @return	the value of the position
+	 */
+	public static Value getValue(int code)
+	{
+		return code > 0 ? Value.WIN : (code < 0 ? Value.LOSS : Value.DRAW);
+	}
+	
+	/**
+	 * Returns the number of plies to the end of the game from a position with the given code, zero for a draw
+	 * 
+	 * @param code	the code of the position
+	 * @return	the distance of the position
+	 */
+	public static int getDistance(int code)
+	{
+		if(code == 0)
+		{
+			return 0;
+		}
+		
+		return code > 0 ? 2*code - 1 : 2*(-code - 1);
+	}
+	
+	/**
+	 * @return	the largest number of pieces of any slice of this database
+	 */
+	public int getMaxPieces()
+	{
+		return maxPieces;
+	}
+}
@@ -0,0 +1,760 @@
+package game.player.ai.endgame;
+
+import game.player.ai.endgame.EndgameDatabase.Value;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * An offline tool solving every checkers endgame with up to a given number of pieces by retrograde analysis, and writing one file per slice for the endgame database
+ * Slices are solved together with their mirror, which holds the positions reached by their steps, after every slice their captures and crownings lead to
+ * Every position first counts its moves and schedules the effects of those leaving the pair, then values spread backwards by undoing steps
+ * Values are decided one distance at a time, so that a won position keeps its shortest win and a lost position its longest loss
+ * Positions still undecided at the end are draws, and every pass is split over a pool of worker threads
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class EndgameGenerator
+{
+	/** The default largest number of pieces of the positions solved **/
+	public static final int DEFAULT_MAX_PIECES = 4;
+	
+	/** The default directory the slice files are written to **/
+	public static final String DEFAULT_DIRECTORY = "endgame";
+	
+	/** The number of indices or positions handed to a worker at once **/
+	private static final int CHUNK_SIZE = 1 << 14;
+	
+	/** The state of a position whose value is not known yet, the number of its moves not yet known to win being stored above the value bits **/
+	private static final int UNKNOWN = 0;
+	
+	/** The state of a won position, its distance being stored above the value bits **/
+	private static final int WIN = 1;
+	
+	/** The state of a lost position, its distance being stored above the value bits **/
+	private static final int LOSS = 2;
+	
+	/** The state of an index at which pieces share a square **/
+	private static final int INVALID = 3;
+	
+	/** The mask of the value bits of a state **/
+	private static final int VALUE_MASK = 3;
+	
+	/** The shift of the move count or distance of a state **/
+	private static final int VALUE_SHIFT = 2;
+	
+	/** The directory the slice files are written to **/
+	private File directory;
+	
+	/** The largest number of pieces of the positions solved **/
+	private int maxPieces;
+	
+	/** The number of worker threads **/
+	private int threads;
+	
+	/** The executor running the workers **/
+	private ExecutorService executor;
+	
+	/** The slices solved so far, indexed by key **/
+	private HashMap<Integer, EndgameSlice> solvedSlices;
+	
+	/** The codes of the positions of the slices solved so far, indexed by key **/
+	private HashMap<Integer, byte[]> solvedCodes;
+	
+	/**
+	 * Parameterized constructor, initializes all fields to given values
+	 * 
+	 * @param directory	the directory the slice files are written to
+	 * @param maxPieces	the largest number of pieces of the positions solved
+	 * @param threads	the number of worker threads
+	 */
+	public EndgameGenerator(File directory, int maxPieces, int threads)
+	{
+		this.directory = directory;
+		this.maxPieces = maxPieces;
+		this.threads = threads;
+		this.solvedSlices = new HashMap<Integer, EndgameSlice>();
+		this.solvedCodes = new HashMap<Integer, byte[]>();
+	}
+	
+	/**
+	 * Solves every slice, from the fewest pieces and soldiers up, so that captures and crownings always lead to solved slices
+	 * 
+	 * @throws IOException
+	 */
+	public void generate() throws IOException
+	{
+		if(!directory.isDirectory() && !directory.mkdirs())
+		{
+			throw new IOException("Could not create directory: " + directory);
+		}
+		
+		executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+		{
+			/** The number of threads created so far **/
+			private int count;
+			
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "Endgame worker " + (++ count));
+				thread.setDaemon(true);
+				
+				return thread;
+			}
+		});
+		
+		try
+		{
+			for(int pieces = 2; pieces <= maxPieces; pieces ++)
+			{
+				for(int men = 0; men <= pieces; men ++)
+				{
+					for(EndgameSlice slice : getSlices(pieces, men))
+					{
+						if(!solvedSlices.containsKey(slice.getKey()))
+						{
+							solve(slice);
+						}
+					}
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * Returns every slice with the given number of pieces and soldiers in which both players have a piece
+	 * 
+	 * @param pieces	the total number of pieces
+	 * @param men	the total number of soldiers
+	 * @return	the slices with the given material
+	 */
+	private static ArrayList<EndgameSlice> getSlices(int pieces, int men)
+	{
+		ArrayList<EndgameSlice> slices = new ArrayList<EndgameSlice>();
+		
+		for(int moverMen = 0; moverMen <= men; moverMen ++)
+		{
+			for(int moverKings = 0; moverKings <= pieces - men; moverKings ++)
+			{
+				int otherMen = men - moverMen;
+				int otherKings = pieces - men - moverKings;
+				
+				if(moverMen + moverKings > 0 && otherMen + otherKings > 0)
+				{
+					slices.add(new EndgameSlice(moverMen, moverKings, otherMen, otherKings));
+				}
+			}
+		}
+		
+		return slices;
+	}
+	
+	/**
+	 * Solves the given slice together with its mirror, and writes their files
+	 * 
+	 * @param slice	the slice to be solved
+	 * @throws IOException
+	 */
+	private void solve(EndgameSlice slice) throws IOException
+	{
+		long start = System.currentTimeMillis();
+		
+		EndgameSlice mirror = slice.getMirror();
+		
+		final EndgameSlice[] slices = slice.equals(mirror) ? new EndgameSlice[] {slice} : new EndgameSlice[] {slice, mirror};
+		final AtomicIntegerArray[] states = new AtomicIntegerArray[slices.length];
+		
+		for(int i = 0; i < slices.length; i ++)
+		{
+			if(slices[i].getSize() > Integer.MAX_VALUE)
+			{
+				throw new IllegalArgumentException("Slice too large to be solved in memory: " + slices[i].getFileName());
+			}
+			
+			states[i] = new AtomicIntegerArray((int) slices[i].getSize());
+		}
+		
+		/** Move counts, and the effects of the moves leaving the pair scheduled at the distances of the positions they reach **/
+		ArrayList<Callable<Schedule>> initializations = new ArrayList<Callable<Schedule>>();
+		
+		for(int i = 0; i < slices.length; i ++)
+		{
+			for(long from = 0; from < slices[i].getSize(); from += CHUNK_SIZE)
+			{
+				final int sliceIndex = i;
+				final int chunkStart = (int) from;
+				final int chunkEnd = (int) Math.min(from + CHUNK_SIZE, slices[i].getSize());
+				
+				initializations.add(new Callable<Schedule>()
+				{
+					@Override
+					public Schedule call()
+					{
+						return initialize(slices, states, sliceIndex, chunkStart, chunkEnd);
+					}
+				});
+			}
+		}
+		
+		Schedule schedule = new Schedule();
+		
+		for(Schedule part : runAll(initializations))
+		{
+			schedule.addAll(part);
+		}
+		
+		int longest = 0;
+		
+		/** Values spread backwards one distance at a time **/
+		for(int distance = 0; distance < schedule.getLength(); distance ++)
+		{
+			PositionList decided = schedule.getDecided(distance);
+			
+			decided.addAll(merge(runAll(getTasks(slices, states, schedule.getWins(distance), distance, true))));
+			
+			ArrayList<Callable<PositionList>> tasks = getTasks(slices, states, decided, distance, false);
+			
+			tasks.addAll(getTasks(slices, states, schedule.getRefutations(distance), distance, false));
+			
+			PositionList next = merge(runAll(tasks));
+			
+			if(next.size() > 0)
+			{
+				schedule.getDecided(distance + 1).addAll(next);
+			}
+			
+			if(decided.size() > 0)
+			{
+				longest = distance;
+			}
+		}
+		
+		for(int i = 0; i < slices.length; i ++)
+		{
+			write(slices[i], states[i]);
+		}
+		
+		System.out.println("Solved " + slice.getFileName() + (slices.length > 1 ? " and " + mirror.getFileName() : "") + " in " + (System.currentTimeMillis() - start) + " ms, longest distance " + longest);
+	}
+	
+	/**
+	 * Returns the tasks applying the given events at the given distance, split into chunks
+	 * 
+	 * @param slices	the slices of the pair
+	 * @param states	the states of the positions of the slices
+	 * @param events	the events to be applied
+	 * @param distance	the distance at which the events happen
+	 * @param wins	whether the events are wins reached by moves leaving the pair, or decided positions and refutations to be spread
+	 * @return	the tasks applying the events
+	 */
+	private ArrayList<Callable<PositionList>> getTasks(final EndgameSlice[] slices, final AtomicIntegerArray[] states, final PositionList events, final int distance, final boolean wins)
+	{
+		ArrayList<Callable<PositionList>> tasks = new ArrayList<Callable<PositionList>>();
+		
+		for(int from = 0; from < events.size(); from += CHUNK_SIZE)
+		{
+			final int chunkStart = from;
+			final int chunkEnd = Math.min(from + CHUNK_SIZE, events.size());
+			
+			tasks.add(new Callable<PositionList>()
+			{
+				@Override
+				public PositionList call()
+				{
+					PositionList next = new PositionList();
+					
+					for(int i = chunkStart; i < chunkEnd; i ++)
+					{
+						int sliceIndex = events.getSliceIndex(i);
+						int index = events.getIndex(i);
+						
+						if(wins)
+						{
+							if(update(states[sliceIndex], index, 0, distance))
+							{
+								next.add(sliceIndex, index);
+							}
+						}
+						else if(events.getAmount(i) > 0)
+						{
+							if(update(states[sliceIndex], index, events.getAmount(i), distance + 1))
+							{
+								next.add(sliceIndex, index);
+							}
+						}
+						else
+						{
+							propagate(slices, states, sliceIndex, index, distance, next);
+						}
+					}
+					
+					return next;
+				}
+			});
+		}
+		
+		return tasks;
+	}
+	
+	/**
+	 * Counts the moves of the positions of the given range of a slice, and schedules the effects of those leaving the pair
+	 * A move to a lost position schedules a win one ply later, and the moves to won positions schedule a refutation at the longest of their distances
+	 * 
+	 * @param slices	the slices of the pair
+	 * @param states	the states of the positions of the slices
+	 * @param sliceIndex	the index of the slice of the range within the pair
+	 * @param from	the first index of the range
+	 * @param to	the index after the last of the range
+	 * @return	the effects scheduled
+	 */
+	private Schedule initialize(EndgameSlice[] slices, AtomicIntegerArray[] states, int sliceIndex, int from, int to)
+	{
+		Schedule schedule = new Schedule();
+		
+		int mirrorKey = slices[slices.length - 1 - sliceIndex].getKey();
+		
+		for(int index = from; index < to; index ++)
+		{
+			EndgamePosition position = slices[sliceIndex].getPosition(index);
+			
+			if(!position.isValid())
+			{
+				states[sliceIndex].set(index, INVALID);
+				
+				continue;
+			}
+			
+			ArrayList<EndgamePosition> successors = position.getSuccessors();
+			
+			if(successors.isEmpty())
+			{
+				states[sliceIndex].set(index, LOSS);
+				
+				schedule.getDecided(0).add(sliceIndex, index);
+				
+				continue;
+			}
+			
+			int shortestWin = Integer.MAX_VALUE;
+			int longestRefutation = -1;
+			int refutations = 0;
+			
+			for(EndgamePosition successor : successors)
+			{
+				if(EndgameSlice.getKey(successor) == mirrorKey)
+				{
+					continue;
+				}
+				
+				int code = getSolvedCode(successor);
+				
+				if(EndgameDatabase.getValue(code) == Value.LOSS)
+				{
+					shortestWin = Math.min(shortestWin, EndgameDatabase.getDistance(code) + 1);
+				}
+				else if(EndgameDatabase.getValue(code) == Value.WIN)
+				{
+					longestRefutation = Math.max(longestRefutation, EndgameDatabase.getDistance(code));
+					refutations ++;
+				}
+			}
+			
+			states[sliceIndex].set(index, successors.size() << VALUE_SHIFT);
+			
+			if(shortestWin < Integer.MAX_VALUE)
+			{
+				schedule.getWins(shortestWin).add(sliceIndex, index);
+			}
+			else if(refutations > 0)
+			{
+				schedule.getRefutations(longestRefutation).add(sliceIndex, index, refutations);
+			}
+		}
+		
+		return schedule;
+	}
+	
+	/**
+	 * Spreads the value of the given position, decided at the given distance, to the positions reaching it by a step
+	 * A predecessor of a lost position is won, and a predecessor whose last move not known to win reaches a won position is lost, both one ply further
+	 * 
+	 * @param slices	the slices of the pair
+	 * @param states	the states of the positions of the slices
+	 * @param sliceIndex	the index of the slice of the position within the pair
+	 * @param index	the index of the position within its slice
+	 * @param distance	the distance of the position
+	 * @param next	the list the positions decided one ply further are added to
+	 */
+	private void propagate(EndgameSlice[] slices, AtomicIntegerArray[] states, int sliceIndex, int index, int distance, PositionList next)
+	{
+		int mirrorIndex = slices.length - 1 - sliceIndex;
+		
+		boolean lost = (states[sliceIndex].get(index) & VALUE_MASK) == LOSS;
+		
+		for(EndgamePosition predecessor : slices[sliceIndex].getPosition(index).getStepPredecessors())
+		{
+			/** With a jump available the step was not legal **/
+			if(predecessor.hasJump())
+			{
+				continue;
+			}
+			
+			int predecessorIndex = (int) slices[mirrorIndex].getIndex(predecessor);
+			
+			if(update(states[mirrorIndex], predecessorIndex, lost ? 0 : 1, distance + 1))
+			{
+				next.add(mirrorIndex, predecessorIndex);
+			}
+		}
+	}
+	
+	/**
+	 * Decides the given undecided position as won if no refutations are given, or removes the given number of refutations from its count, deciding it as lost once none remain
+	 * 
+	 * @param states	the states of the positions of the slice
+	 * @param index	the index of the position within the slice
+	 * @param refutations	the number of moves found to reach won positions, or zero if a move reaches a lost position
+	 * @param distance	the distance of the position if it is decided
+	 * @return	whether or not the position was decided
+	 */
+	private static boolean update(AtomicIntegerArray states, int index, int refutations, int distance)
+	{
+		while(true)
+		{
+			int state = states.get(index);
+			
+			if((state & VALUE_MASK) != UNKNOWN)
+			{
+				return false;
+			}
+			
+			int remaining = (state >>> VALUE_SHIFT) - refutations;
+			
+			int newState = refutations == 0 ? (distance << VALUE_SHIFT) | WIN : (remaining == 0 ? (distance << VALUE_SHIFT) | LOSS : remaining << VALUE_SHIFT);
+			
+			if(states.compareAndSet(index, state, newState))
+			{
+				return (newState & VALUE_MASK) != UNKNOWN;
+			}
+		}
+	}
+	
+	/**
+	 * Runs the given tasks on the workers and returns their results
+	 * 
+	 * @param tasks	the tasks to be run
+	 * @return	the results of the tasks, in order
+	 * @throws IOException
+	 */
+	private <T> ArrayList<T> runAll(ArrayList<Callable<T>> tasks) throws IOException
+	{
+		ArrayList<T> results = new ArrayList<T>();
+		
+		try
+		{
+			for(Future<T> future : executor.invokeAll(tasks))
+			{
+				results.add(future.get());
+			}
+		}
+		catch(InterruptedException exception)
+		{
+			Thread.currentThread().interrupt();
+			
+			throw new IOException("Endgame generation interrupted");
+		}
+		catch(ExecutionException exception)
+		{
+			throw new IOException("Endgame worker failed", exception.getCause());
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * Returns a list holding the positions of all given lists
+	 * 
+	 * @param lists	the lists to be merged
+	 * @return	the merged list
+	 */
+	private static PositionList merge(ArrayList<PositionList> lists)
+	{
+		PositionList merged = new PositionList();
+		
+		for(PositionList list : lists)
+		{
+			merged.addAll(list);
+		}
+		
+		return merged;
+	}
+	
+	/**
+	 * Returns the code of the given position, which must belong to a slice solved before
+	 * 
+	 * @param position	the position reached by a capture or a crowning
+	 * @return	the code of the position for the player to move
+	 */
+	private int getSolvedCode(EndgamePosition position)
+	{
+		if(position.getMoverMen() == 0 && position.getMoverKings() == 0)
+		{
+			return EndgameDatabase.getCode(Value.LOSS, 0);
+		}
+		
+		int key = EndgameSlice.getKey(position);
+		
+		return solvedCodes.get(key)[(int) solvedSlices.get(key).getIndex(position)];
+	}
+	
+	/**
+	 * Converts the states of the given slice to codes, keeps them for the slices solved later and writes them to the file of the slice
+	 * Positions still undecided are draws
+	 * 
+	 * @param slice	the slice to be written
+	 * @param states	the states of the positions of the slice
+	 * @throws IOException
+	 */
+	private void write(EndgameSlice slice, AtomicIntegerArray states) throws IOException
+	{
+		byte[] codes = new byte[states.length()];
+		
+		for(int index = 0; index < states.length(); index ++)
+		{
+			int state = states.get(index);
+			int distance = state >>> VALUE_SHIFT;
+			
+			if((state & VALUE_MASK) == WIN || (state & VALUE_MASK) == LOSS)
+			{
+				if(distance > EndgameDatabase.MAX_DISTANCE)
+				{
+					throw new IllegalStateException("Distance too long for the endgame file format: " + distance);
+				}
+				
+				codes[index] = EndgameDatabase.getCode((state & VALUE_MASK) == WIN ? Value.WIN : Value.LOSS, distance);
+			}
+		}
+		
+		OutputStream output = new BufferedOutputStream(new FileOutputStream(new File(directory, slice.getFileName())));
+		
+		try
+		{
+			output.write(codes);
+		}
+		finally
+		{
+			output.close();
+		}
+		
+		solvedSlices.put(slice.getKey(), slice);
+		solvedCodes.put(slice.getKey(), codes);
+	}
+	
+	/**
+	 * Solves the endgames with up to the given number of pieces
+	 * Arguments are the largest number of pieces, the output directory and the number of threads, each optional
+	 * 
+	 * @param args	the command line arguments
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int maxPieces = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MAX_PIECES;
+		File directory = new File(args.length > 1 ? args[1] : DEFAULT_DIRECTORY);
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		
+		new EndgameGenerator(directory, maxPieces, threads).generate();
+	}
+	
+	/**
+	 * A class representing the events of a retrograde analysis, indexed by the distance at which they happen
+	 * 
+	 * @author Benjamin Cohen-Wang
+	 */
+	private static class Schedule
+	{
+		/** The positions decided at each distance, whose values are to be spread **/
+		private ArrayList<PositionList> decided = new ArrayList<PositionList>();
+		
+		/** The positions won at each distance by a move leaving the pair, unless decided sooner **/
+		private ArrayList<PositionList> wins = new ArrayList<PositionList>();
+		
+		/** The positions whose moves leaving the pair are refuted at each distance, with the number of those moves **/
+		private ArrayList<PositionList> refutations = new ArrayList<PositionList>();
+		
+		/**
+		 * @param distance	the distance of the positions
+		 * @return	the positions decided at the given distance
+		 */
+		public PositionList getDecided(int distance)
+		{
+			return get(decided, distance);
+		}
+		
+		/**
+		 * @param distance	the distance of the positions
+		 * @return	the positions won at the given distance by a move leaving the pair
+		 */
+		public PositionList getWins(int distance)
+		{
+			return get(wins, distance);
+		}
+		
+		/**
+		 * @param distance	the distance of the refutations
+		 * @return	the positions whose moves leaving the pair are refuted at the given distance
+		 */
+		public PositionList getRefutations(int distance)
+		{
+			return get(refutations, distance);
+		}
+		
+		/**
+		 * Adds every event of the given schedule to this schedule
+		 * 
+		 * @param other	the schedule to be added
+		 */
+		public void addAll(Schedule other)
+		{
+			for(int distance = 0; distance < other.getLength(); distance ++)
+			{
+				getDecided(distance).addAll(other.getDecided(distance));
+				getWins(distance).addAll(other.getWins(distance));
+				getRefutations(distance).addAll(other.getRefutations(distance));
+			}
+		}
+		
+		/**
+		 * @return	the number of distances for which events may be scheduled
+		 */
+		public int getLength()
+		{
+			return Math.max(decided.size(), Math.max(wins.size(), refutations.size()));
+		}
+		
+		/**
+		 * Returns the list of the given distance, adding empty lists up to it
+		 * 
+		 * @param lists	the lists indexed by distance
+		 * @param distance	the distance of the list
+		 * @return	the list of the distance
+		 */
+		private static PositionList get(ArrayList<PositionList> lists, int distance)
+		{
+			while(lists.size() <= distance)
+			{
+				lists.add(new PositionList());
+			}
+			
+			return lists.get(distance);
+		}
+	}
+	
+	/**
+	 * A class representing a growable list of positions, each given by the index of its slice within the pair, its index within the slice and an amount
+	 * 
+	 * @author Benjamin Cohen-Wang
+	 */
+	private static class PositionList
+	{
+		/** The positions of this list, the amount above the slice index bit and the index below **/
+		private long[] positions = new long[16];
+		
+		/** The number of positions of this list **/
+		private int size;
+		
+		/**
+		 * Adds the given position to this list with an amount of zero
+		 * 
+		 * @param sliceIndex	the index of the slice of the position within the pair
+		 * @param index	the index of the position within the slice
+		 */
+		public void add(int sliceIndex, int index)
+		{
+			add(sliceIndex, index, 0);
+		}
+		
+		/**
+		 * Adds the given position to this list
+		 * 
+		 * @param sliceIndex	the index of the slice of the position within the pair
+		 * @param index	the index of the position within the slice
+		 * @param amount	the amount of the position
+		 */
+		public void add(int sliceIndex, int index, int amount)
+		{
+			if(size == positions.length)
+			{
+				positions = Arrays.copyOf(positions, 2*size);
+			}
+			
+			positions[size ++] = ((long) amount << 33) | ((long) sliceIndex << 32) | (index & 0xFFFFFFFFL);
+		}
+		
+		/**
+		 * Adds every position of the given list to this list
+		 * 
+		 * @param other	the list to be added
+		 */
+		public void addAll(PositionList other)
+		{
+			for(int i = 0; i < other.size; i ++)
+			{
+				add(other.getSliceIndex(i), other.getIndex(i), other.getAmount(i));
+			}
+		}
+		
+		/**
+		 * @param i	the position in this list
+		 * @return	the index of the slice of the position within the pair
+		 */
+		public int getSliceIndex(int i)
+		{
+			return (int) (positions[i] >>> 32) & 1;
+		}
+		
+		/**
+		 * @param i	the position in this list
+		 * @return	the index of the position within its slice
+		 */
+		public int getIndex(int i)
+		{
+			return (int) positions[i];
+		}
+		
+		/**
+		 * @param i	the position in this list
+		 * @return	the amount of the position
+		 */
+		public int getAmount(int i)
+		{
+			return (int) (positions[i] >>> 33);
+		}
+		
+		/**
+		 * @return	the number of positions of this list
+		 */
+		public int size()
+		{
+			return size;
+		}
+	}
+}
@@ -0,0 +1,431 @@
+package game.player.ai.endgame;
+
+import game.Game;
+import game.board.CheckersBoard;
+import game.board.node.Location;
+import game.board.node.Node;
+import game.piece.Piece;
+import game.piece.Piece.Loyalty;
+import game.piece.checkersPieces.King;
+import game.piece.checkersPieces.Soldier;
+
+import java.util.ArrayList;
+
+/**
+ * A class representing a checkers position as bitboards of the 32 playable squares, seen by the player to move
+ * Squares are numbered four per row from the red side, and positions with black to move are rotated half a turn so that the player to move always moves towards higher rows
+ * Moves are generated following the rules of the checkers pieces of this game, jumps being forced and a player without moves losing
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class EndgamePosition
+{
+	/** The number of playable squares of a checkers board **/
+	public static final int SQUARES = 32;
+	
+	/** The number of playable squares of a row **/
+	private static final int ROW_SQUARES = 4;
+	
+	/** The squares of the row the player to move crowns on **/
+	private static final int CROWNING_ROW = 0xF0000000;
+	
+	/** The squares reached by a step in each direction, or -1 off the board, the first two directions being forward **/
+	private static final int[][] STEPS = new int[SQUARES][4];
+	
+	/** The squares reached by a jump in each direction, or -1 off the board **/
+	private static final int[][] JUMPS = new int[SQUARES][4];
+	
+	static
+	{
+		int[] rowChanges = {1, 1, -1, -1};
+		int[] colChanges = {-1, 1, -1, 1};
+		
+		for(int square = 0; square < SQUARES; square ++)
+		{
+			for(int direction = 0; direction < 4; direction ++)
+			{
+				STEPS[square][direction] = getSquare(getRow(square) + rowChanges[direction], getCol(square) + colChanges[direction]);
+				JUMPS[square][direction] = getSquare(getRow(square) + 2*rowChanges[direction], getCol(square) + 2*colChanges[direction]);
+			}
+		}
+	}
+	
+	/** The soldiers of the player to move **/
+	private final int moverMen;
+	
+	/** The kings of the player to move **/
+	private final int moverKings;
+	
+	/** The soldiers of the other player **/
+	private final int otherMen;
+	
+	/** The kings of the other player **/
+	private final int otherKings;
+	
+	/**
+	 * Parameterized constructor, initializes all bitboards to given values
+	 * 
+	 * @param moverMen	the soldiers of the player to move
+	 * @param moverKings	the kings of the player to move
+	 * @param otherMen	the soldiers of the other player
+	 * @param otherKings	the kings of the other player
+	 */
+	public EndgamePosition(int moverMen, int moverKings, int otherMen, int otherKings)
+	{
+		this.moverMen = moverMen;
+		this.moverKings = moverKings;
+		this.otherMen = otherMen;
+		this.otherKings = otherKings;
+	}
+	
+	/**
+	 * Returns the position of the given game, or null if the game is not played on a standard eight by eight checkers board or holds more than the given number of pieces
+	 * 
+	 * @param game	the game to be converted
+	 * @param maxPieces	the maximum number of pieces
+	 * @return	the position of the game seen by the player to move, or null
+	 */
+	public static EndgamePosition getPosition(Game game, int maxPieces)
+	{
+		if(!(game.getBoard() instanceof CheckersBoard))
+		{
+			return null;
+		}
+		
+		Node[][] grid = ((CheckersBoard) game.getBoard()).getGrid();
+		
+		if(grid.length != CheckersBoard.CHECKERS_GRID_LENGTH || grid[0].length != CheckersBoard.CHECKERS_GRID_LENGTH)
+		{
+			return null;
+		}
+		
+		int[] men = new int[2];
+		int[] kings = new int[2];
+		
+		int count = 0;
+		
+		for(Node node : game.getBoard().getNodes())
+		{
+			Piece piece = node.getPiece();
+			
+			if(piece == null)
+			{
+				continue;
+			}
+			
+			if(++ count > maxPieces)
+			{
+				return null;
+			}
+			
+			int bit = 1 << getSquare(node.getLoc());
+			
+			if(piece instanceof King)
+			{
+				kings[piece.getLoyalty().getVal()] |= bit;
+			}
+			else if(piece instanceof Soldier)
+			{
+				men[piece.getLoyalty().getVal()] |= bit;
+			}
+		}
+		
+		int mover = game.getTurn().getVal();
+		int other = game.getTurn().getOther().getVal();
+		
+		if(game.getTurn() == Loyalty.RED)
+		{
+			return new EndgamePosition(men[mover], kings[mover], men[other], kings[other]);
+		}
+		
+		return new EndgamePosition(flip(men[mover]), flip(kings[mover]), flip(men[other]), flip(kings[other]));
+	}
+	
+	/**
+	 * Returns the positions reached by the moves of the player to move, seen by the other player
+	 * Only jumps are returned if any jump is possible
+	 * 
+	 * @return	the positions following this one
+	 */
+	public ArrayList<EndgamePosition> getSuccessors()
+	{
+		ArrayList<EndgamePosition> successors = new ArrayList<EndgamePosition>();
+		
+		int occupied = moverMen | moverKings | otherMen | otherKings;
+		int others = otherMen | otherKings;
+		
+		for(int pieces = moverMen | moverKings; pieces != 0; pieces &= pieces - 1)
+		{
+			int square = Integer.numberOfTrailingZeros(pieces);
+			
+			addJumps(successors, square, square, (moverKings & (1 << square)) != 0, occupied, others, 0);
+		}
+		
+		if(!successors.isEmpty())
+		{
+			return successors;
+		}
+		
+		for(int pieces = moverMen | moverKings; pieces != 0; pieces &= pieces - 1)
+		{
+			int square = Integer.numberOfTrailingZeros(pieces);
+			boolean king = (moverKings & (1 << square)) != 0;
+			
+			for(int direction = 0; direction < (king ? 4 : 2); direction ++)
+			{
+				int target = STEPS[square][direction];
+				
+				if(target >= 0 && (occupied & (1 << target)) == 0)
+				{
+					successors.add(getSuccessor(square, target, king, 0));
+				}
+			}
+		}
+		
+		return successors;
+	}
+	
+	/**
+	 * Adds the positions reached by the jump sequences of the piece which started on the given origin and has reached the given square
+	 * Jumped pieces stay on the board until the sequence ends, so they may not be jumped twice and no jump may land on them
+	 * 
+	 * @param successors	the positions the results are added to
+	 * @param origin	the square the piece started on, which also stays occupied until the sequence ends
+	 * @param square	the square the piece has reached
+	 * @param king	whether or not the piece is a king
+	 * @param occupied	the occupied squares before the sequence
+	 * @param others	the pieces of the other player before the sequence
+	 * @param captured	the pieces jumped so far
+	 */
+	private void addJumps(ArrayList<EndgamePosition> successors, int origin, int square, boolean king, int occupied, int others, int captured)
+	{
+		boolean jumped = false;
+		
+		for(int direction = 0; direction < (king ? 4 : 2); direction ++)
+		{
+			int target = JUMPS[square][direction];
+			
+			if(target < 0)
+			{
+				continue;
+			}
+			
+			int middle = 1 << STEPS[square][direction];
+			
+			if((occupied & (1 << target)) == 0 && (others & middle) != 0 && (captured & middle) == 0)
+			{
+				jumped = true;
+				
+				addJumps(successors, origin, target, king, occupied, others, captured | middle);
+			}
+		}
+		
+		if(!jumped && captured != 0)
+		{
+			successors.add(getSuccessor(origin, square, king, captured));
+		}
+	}
+	
+	/**
+	 * Returns the position reached by moving the piece on the given origin to the given target and removing the given pieces, seen by the other player
+	 * 
+	 * @param origin	the square the piece starts on
+	 * @param target	the square the piece ends on
+	 * @param king	whether or not the piece is a king
+	 * @param captured	the pieces of the other player to be removed
+	 * @return	the position reached
+	 */
+	private EndgamePosition getSuccessor(int origin, int target, boolean king, int captured)
+	{
+		int men = moverMen & ~(1 << origin);
+		int kings = moverKings & ~(1 << origin);
+		
+		if(king || (CROWNING_ROW & (1 << target)) != 0)
+		{
+			kings |= 1 << target;
+		}
+		else
+		{
+			men |= 1 << target;
+		}
+		
+		return new EndgamePosition(flip(otherMen & ~captured), flip(otherKings & ~captured), flip(men), flip(kings));
+	}
+	
+	/**
+	 * Returns the positions from which the other player reaches this one by a step of one of its pieces, seen by the other player
+	 * Steps crowning a soldier are not undone, as they leave the material of the position
+	 * The positions returned may have a jump available, in which case the step was not legal
+	 * 
+	 * @return	the positions preceding this one by a step
+	 */
+	public ArrayList<EndgamePosition> getStepPredecessors()
+	{
+		ArrayList<EndgamePosition> predecessors = new ArrayList<EndgamePosition>();
+		
+		int occupied = moverMen | moverKings | otherMen | otherKings;
+		
+		for(int pieces = otherMen | otherKings; pieces != 0; pieces &= pieces - 1)
+		{
+			int square = Integer.numberOfTrailingZeros(pieces);
+			boolean king = (otherKings & (1 << square)) != 0;
+			
+			/** The other player moves towards lower rows, so its soldiers came from higher ones **/
+			for(int direction = 0; direction < (king ? 4 : 2); direction ++)
+			{
+				int origin = STEPS[square][direction];
+				
+				if(origin < 0 || (occupied & (1 << origin)) != 0)
+				{
+					continue;
+				}
+				
+				int move = (1 << square) | (1 << origin);
+				
+				int men = king ? otherMen : otherMen ^ move;
+				int kings = king ? otherKings ^ move : otherKings;
+				
+				predecessors.add(new EndgamePosition(flip(men), flip(kings), flip(moverMen), flip(moverKings)));
+			}
+		}
+		
+		return predecessors;
+	}
+	
+	/**
+	 * Returns whether or not the player to move has a jump available
+	 * 
+	 * @return	whether or not the player to move has a jump
+	 */
+	public boolean hasJump()
+	{
+		int empty = ~(moverMen | moverKings | otherMen | otherKings);
+		int others = otherMen | otherKings;
+		
+		for(int pieces = moverMen | moverKings; pieces != 0; pieces &= pieces - 1)
+		{
+			int square = Integer.numberOfTrailingZeros(pieces);
+			boolean king = (moverKings & (1 << square)) != 0;
+			
+			for(int direction = 0; direction < (king ? 4 : 2); direction ++)
+			{
+				int target = JUMPS[square][direction];
+				
+				if(target >= 0 && (empty & (1 << target)) != 0 && (others & (1 << STEPS[square][direction])) != 0)
+				{
+					return true;
+				}
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Returns whether or not no two pieces share a square and no soldier stands on the row it would be crowned on
+	 * 
+	 * @return	whether or not this position is valid
+	 */
+	public boolean isValid()
+	{
+		if((moverMen & moverKings) != 0 || (otherMen & otherKings) != 0 || ((moverMen | moverKings) & (otherMen | otherKings)) != 0)
+		{
+			return false;
+		}
+		
+		return (moverMen & CROWNING_ROW) == 0 && (otherMen & flip(CROWNING_ROW)) == 0;
+	}
+	
+	/**
+	 * Rotates the given bitboard half a turn, exchanging the points of view of the two players
+	 * 
+	 * @param bitboard	the bitboard to be rotated
+	 * @return	the rotated bitboard
+	 */
+	public static int flip(int bitboard)
+	{
+		return Integer.reverse(bitboard);
+	}
+	
+	/**
+	 * Returns the square of the given location of a checkers board
+	 * 
+	 * @param loc	the location of a playable square
+	 * @return	the number of the square
+	 */
+	public static int getSquare(Location loc)
+	{
+		return loc.getRow()*ROW_SQUARES + loc.getCol()/2;
+	}
+	
+	/**
+	 * Returns the square at the given row and column, or -1 if it is off the board
+	 * 
+	 * @param row	the row of the square
+	 * @param col	the column of the square
+	 * @return	the number of the square, or -1
+	 */
+	private static int getSquare(int row, int col)
+	{
+		if(row < 0 || row >= CheckersBoard.CHECKERS_GRID_LENGTH || col < 0 || col >= CheckersBoard.CHECKERS_GRID_LENGTH)
+		{
+			return -1;
+		}
+		
+		return row*ROW_SQUARES + col/2;
+	}
+	
+	/**
+	 * Returns the row of the given square
+	 * 
+	 * @param square	the number of the square
+	 * @return	the row of the square
+	 */
+	private static int getRow(int square)
+	{
+		return square/ROW_SQUARES;
+	}
+	
+	/**
+	 * Returns the column of the given square, playable squares lying where the row and column sum to an odd number
+	 * 
+	 * @param square	the number of the square
+	 * @return	the column of the square
+	 */
+	private static int getCol(int square)
+	{
+		return 2*(square % ROW_SQUARES) + (getRow(square) % 2 == 0 ? 1 : 0);
+	}
+	
+	/**
+	 * @return	the soldiers of the player to move
+	 */
+	public int getMoverMen()
+	{
+		return moverMen;
+	}
+	
+	/**
+	 * @return	the kings of the player to move
+	 */
+	public int getMoverKings()
+	{
+		return moverKings;
+	}
+	
+	/**
+	 * @return	the soldiers of the other player
+	 */
+	public int getOtherMen()
+	{
+		return otherMen;
+	}
+	
+	/**
+	 * @return	the kings of the other player
+	 */
+	public int getOtherKings()
+	{
+		return otherKings;
+	}
+}
@@ -0,0 +1,288 @@
+package game.player.ai.endgame;
+
+/**
+ * A class representing the set of endgame positions with a given material, and the mapping between them and consecutive indices
+ * A position is indexed by the combinatorial ranks of its four bitboards, soldiers ranked among the 28 squares they may stand on and kings among all 32
+ * Placements in which pieces share a square are indexed too, so indices are cheap to compute at the cost of a few unused ones
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class EndgameSlice
+{
+	/** The number of squares a soldier may stand on, every square but those of the row it would be crowned on **/
+	private static final int MAN_SQUARES = 28;
+	
+	/** The largest number of pieces of one kind a slice may hold **/
+	private static final int MAX_KIND_PIECES = 15;
+	
+	/** The binomial coefficients, indexed by the number of squares and the number of pieces **/
+	private static final long[][] BINOMIALS = new long[EndgamePosition.SQUARES + 1][MAX_KIND_PIECES + 1];
+	
+	static
+	{
+		for(int n = 0; n <= EndgamePosition.SQUARES; n ++)
+		{
+			BINOMIALS[n][0] = 1;
+			
+			for(int k = 1; k <= Math.min(n, MAX_KIND_PIECES); k ++)
+			{
+				BINOMIALS[n][k] = BINOMIALS[n - 1][k - 1] + (k <= n - 1 ? BINOMIALS[n - 1][k] : 0);
+			}
+		}
+	}
+	
+	/** The number of soldiers of the player to move **/
+	private final int moverMen;
+	
+	/** The number of kings of the player to move **/
+	private final int moverKings;
+	
+	/** The number of soldiers of the other player **/
+	private final int otherMen;
+	
+	/** The number of kings of the other player **/
+	private final int otherKings;
+	
+	/** The number of indices of this slice **/
+	private final long size;
+	
+	/**
+	 * Parameterized constructor, initializes the material of this slice to given values
+	 * 
+	 * @param moverMen	the number of soldiers of the player to move
+	 * @param moverKings	the number of kings of the player to move
+	 * @param otherMen	the number of soldiers of the other player
+	 * @param otherKings	the number of kings of the other player
+	 */
+	public EndgameSlice(int moverMen, int moverKings, int otherMen, int otherKings)
+	{
+		this.moverMen = moverMen;
+		this.moverKings = moverKings;
+		this.otherMen = otherMen;
+		this.otherKings = otherKings;
+		this.size = BINOMIALS[MAN_SQUARES][moverMen]*BINOMIALS[EndgamePosition.SQUARES][moverKings]*BINOMIALS[MAN_SQUARES][otherMen]*BINOMIALS[EndgamePosition.SQUARES][otherKings];
+	}
+	
+	/**
+	 * Returns the slice of the given position
+	 * 
+	 * @param position	the position whose material is counted
+	 * @return	the slice holding the position
+	 */
+	public static EndgameSlice getSlice(EndgamePosition position)
+	{
+		return new EndgameSlice(Integer.bitCount(position.getMoverMen()), Integer.bitCount(position.getMoverKings()), Integer.bitCount(position.getOtherMen()), Integer.bitCount(position.getOtherKings()));
+	}
+	
+	/**
+	 * Returns the key of the slice of the given position, equal to the key of that slice
+	 * 
+	 * @param position	the position whose material is counted
+	 * @return	the key of the slice holding the position
+	 */
+	public static int getKey(EndgamePosition position)
+	{
+		return getKey(Integer.bitCount(position.getMoverMen()), Integer.bitCount(position.getMoverKings()), Integer.bitCount(position.getOtherMen()), Integer.bitCount(position.getOtherKings()));
+	}
+	
+	/**
+	 * Returns the key of the slice with the given material
+	 * 
+	 * @param moverMen	the number of soldiers of the player to move
+	 * @param moverKings	the number of kings of the player to move
+	 * @param otherMen	the number of soldiers of the other player
+	 * @param otherKings	the number of kings of the other player
+	 * @return	the key of the slice
+	 */
+	private static int getKey(int moverMen, int moverKings, int otherMen, int otherKings)
+	{
+		return ((moverMen*16 + moverKings)*16 + otherMen)*16 + otherKings;
+	}
+	
+	/**
+	 * Returns the index of the given position, which must belong to this slice
+	 * 
+	 * @param position	the position to be indexed
+	 * @return	the index of the position
+	 */
+	public long getIndex(EndgamePosition position)
+	{
+		long index = getRank(position.getMoverMen(), 0);
+		
+		index = index*BINOMIALS[EndgamePosition.SQUARES][moverKings] + getRank(position.getMoverKings(), 0);
+		index = index*BINOMIALS[MAN_SQUARES][otherMen] + getRank(position.getOtherMen(), EndgamePosition.SQUARES - MAN_SQUARES);
+		index = index*BINOMIALS[EndgamePosition.SQUARES][otherKings] + getRank(position.getOtherKings(), 0);
+		
+		return index;
+	}
+	
+	/**
+	 * Returns the position with the given index, which may be invalid if pieces share a square
+	 * 
+	 * @param index	the index of the position
+	 * @return	the position with the index
+	 */
+	public EndgamePosition getPosition(long index)
+	{
+		long otherKingsCount = BINOMIALS[EndgamePosition.SQUARES][otherKings];
+		long otherMenCount = BINOMIALS[MAN_SQUARES][otherMen];
+		long moverKingsCount = BINOMIALS[EndgamePosition.SQUARES][moverKings];
+		
+		int otherKingsBits = getBitboard(index % otherKingsCount, otherKings, 0);
+		index /= otherKingsCount;
+		
+		int otherMenBits = getBitboard(index % otherMenCount, otherMen, EndgamePosition.SQUARES - MAN_SQUARES);
+		index /= otherMenCount;
+		
+		int moverKingsBits = getBitboard(index % moverKingsCount, moverKings, 0);
+		index /= moverKingsCount;
+		
+		int moverMenBits = getBitboard(index, moverMen, 0);
+		
+		return new EndgamePosition(moverMenBits, moverKingsBits, otherMenBits, otherKingsBits);
+	}
+	
+	/**
+	 * Returns the combinatorial rank of the given set of squares, squares below the given offset being excluded
+	 * 
+	 * @param bitboard	the set of squares
+	 * @param offset	the lowest square the pieces may stand on
+	 * @return	the rank of the set
+	 */
+	private static long getRank(int bitboard, int offset)
+	{
+		long rank = 0;
+		
+		int count = 1;
+		
+		for(int bits = bitboard; bits != 0; bits &= bits - 1)
+		{
+			rank += BINOMIALS[Integer.numberOfTrailingZeros(bits) - offset][count];
+			
+			count ++;
+		}
+		
+		return rank;
+	}
+	
+	/**
+	 * Returns the set of the given number of squares with the given combinatorial rank, squares below the given offset being excluded
+	 * 
+	 * @param rank	the rank of the set
+	 * @param count	the number of squares of the set
+	 * @param offset	the lowest square the pieces may stand on
+	 * @return	the set of squares
+	 */
+	private static int getBitboard(long rank, int count, int offset)
+	{
+		int bitboard = 0;
+		
+		int position = EndgamePosition.SQUARES - 1;
+		
+		for(int k = count; k > 0; k --)
+		{
+			while(BINOMIALS[position][k] > rank)
+			{
+				position --;
+			}
+			
+			bitboard |= 1 << (position + offset);
+			rank -= BINOMIALS[position][k];
+			
+			position --;
+		}
+		
+		return bitboard;
+	}
+	
+	/**
+	 * Returns the slice of the positions seen by the other player, holding the positions reached by steps which neither capture nor crown
+	 * 
+	 * @return	the mirrored slice
+	 */
+	public EndgameSlice getMirror()
+	{
+		return new EndgameSlice(otherMen, otherKings, moverMen, moverKings);
+	}
+	
+	/**
+	 * Returns the name of the file holding the values of this slice
+	 * 
+	 * @return	the file name of this slice
+	 */
+	public String getFileName()
+	{
+		return "checkers-" + moverMen + moverKings + otherMen + otherKings + ".edb";
+	}
+	
+	/**
+	 * @return	the key identifying this slice
+	 */
+	public int getKey()
+	{
+		return getKey(moverMen, moverKings, otherMen, otherKings);
+	}
+	
+	/**
+	 * @return	the number of indices of this slice
+	 */
+	public long getSize()
+	{
+		return size;
+	}
+	
+	/**
+	 * @return	the total number of pieces of this slice
+	 */
+	public int getPieceCount()
+	{
+		return moverMen + moverKings + otherMen + otherKings;
+	}
+	
+	/**
+	 * @return	the number of soldiers of this slice
+	 */
+	public int getMenCount()
+	{
+		return moverMen + otherMen;
+	}
+	
+	/**
+	 * @return	the number of pieces of the player to move
+	 */
+	public int getMoverCount()
+	{
+		return moverMen + moverKings;
+	}
+	
+	/**
+	 * @return	the number of pieces of the other player
+	 */
+	public int getOtherCount()
+	{
+		return otherMen + otherKings;
+	}
+	
+	/**
+	 * Compares this slice to another
+	 * 
+	 * @param obj	the slice to be compared to
+	 * @return	whether or not the slices hold the same material
+	 */
+	@Override
+	public boolean equals(Object obj)
+	{
+		return obj instanceof EndgameSlice && ((EndgameSlice) obj).getKey() == getKey();
+	}
+	
+	/**
+	 * Returns the hash code of this slice, overrides from Object
+	 * 
+	 * @return	the hash code
+	 */
+	@Override
+	public int hashCode()
+	{
+		return getKey();
+	}
+}